@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.hdfs;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.hadoop.io.ByteBufferPool;
+import org.apache.hadoop.io.ElasticByteBufferPool;
+
+/**
+ * A pool of the byte arrays used to copy message bodies, so a buffer of the configured buffer size is not allocated
+ * for every written message.
+ */
+final class HdfsBufferPool {
+
+    private static final int MAX_POOLED_PER_SIZE = 16;
+
+    /**
+     * The pool of the buffers HDFS reads the ZERO_COPY chunks into when they can not be mapped.
+     */
+    static final ByteBufferPool BYTE_BUFFERS = new ElasticByteBufferPool();
+
+    /**
+     * The empty chunk read at the end of a file, which is shared and never given back to a pool.
+     */
+    static final ByteBuffer EMPTY_CHUNK = ByteBuffer.allocate(0).asReadOnlyBuffer();
+
+    private static final ConcurrentMap<Integer, Queue<byte[]>> BUFFERS = new ConcurrentHashMap<>();
+
+    private HdfsBufferPool() {
+    }
+
+    static byte[] acquire(int size) {
+        byte[] buf = pool(size).poll();
+        return buf != null ? buf : new byte[size];
+    }
+
+    static void release(byte[] buf) {
+        Queue<byte[]> pool = pool(buf.length);
+        // the size is only approximate, which is fine to keep the pool bounded
+        if (pool.size() < MAX_POOLED_PER_SIZE) {
+            pool.offer(buf);
+        }
+    }
+
+    private static Queue<byte[]> pool(int size) {
+        return BUFFERS.computeIfAbsent(size, k -> new ConcurrentLinkedQueue<>());
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.hdfs;
+
+import java.io.IOException;
+
+/**
+ * Stores the positions reached by the consumer in the files it is consuming, so a file which has only been partially
+ * consumed when the consumer stopped can be continued from there instead of from the start.
+ */
+public interface HdfsCheckpointStore {
+
+    /**
+     * The position stored for the file, or -1 if there is none.
+     */
+    long load(String path) throws IOException;
+
+    void save(String path, long position) throws IOException;
+
+    void remove(String path) throws IOException;
+}
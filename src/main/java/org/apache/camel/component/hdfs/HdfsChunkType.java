@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.hdfs;
+
+/**
+ * The type of the message bodies holding the chunks of a normal file.
+ */
+public enum HdfsChunkType {
+
+    /**
+     * A <tt>ByteArrayOutputStream</tt> holding the bytes of a single read, which may be less than the chunk size.
+     */
+    STREAM,
+
+    /**
+     * A <tt>byte[]</tt> of the chunk size, filled completely except for the last chunk of the file.
+     */
+    BYTES,
+
+    /**
+     * A <tt>ByteBuffer</tt> of the chunk size, filled like BYTES, whose array is taken from a pool and given back to it
+     * when the exchange completes. The body must therefore not be kept after the exchange completes.
+     */
+    POOLED_BUFFER,
+
+    /**
+     * A <tt>ByteBuffer</tt> of at most the chunk size, read with the enhanced byte buffer access of HDFS, which maps the
+     * blocks of short-circuit local replicas in memory instead of copying them. When zero-copy is not possible, the chunk
+     * is copied into a buffer taken from a pool. The buffer is given back when the exchange completes, so like
+     * POOLED_BUFFER the body must not be kept after the exchange completes.
+     */
+    ZERO_COPY
+
+}
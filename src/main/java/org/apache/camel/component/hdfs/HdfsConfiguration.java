@@ -44,6 +44,7 @@ public class HdfsConfiguration {
     private URI uri;
     private boolean wantAppend;
     private List<HdfsProducer.SplitStrategy> splitStrategies;
+    private List<HdfsOutputStream.SyncPolicy> syncPolicies;
 
     @UriPath @Metadata(required = true)
     private String hostName;
@@ -57,6 +58,12 @@ public class HdfsConfiguration {
     private boolean append;
     @UriParam(label = "advanced")
     private String splitStrategy;
+    @UriParam(label = "producer")
+    private String splitDirectoryPattern;
+    @UriParam(label = "producer")
+    private String syncPolicy;
+    @UriParam(label = "producer", defaultValue = "NONE")
+    private HdfsSyncDurability syncDurability = HdfsSyncDurability.NONE;
     @UriParam(label = "advanced", defaultValue = "" + HdfsConstants.DEFAULT_BUFFERSIZE)
     private int bufferSize = HdfsConstants.DEFAULT_BUFFERSIZE;
     @UriParam(label = "advanced", defaultValue = "" + HdfsConstants.DEFAULT_REPLICATION)
@@ -83,12 +90,89 @@ public class HdfsConfiguration {
     private String pattern = HdfsConstants.DEFAULT_PATTERN;
     @UriParam(label = "advanced", defaultValue = "" + HdfsConstants.DEFAULT_BUFFERSIZE)
     private int chunkSize = HdfsConstants.DEFAULT_BUFFERSIZE;
+    @UriParam(label = "consumer", defaultValue = "STREAM")
+    private HdfsChunkType chunkType = HdfsChunkType.STREAM;
+    @UriParam(label = "advanced")
+    private boolean skipChecksums;
+    @UriParam(label = "consumer", defaultValue = "CHUNK")
+    private HdfsRecordType recordType = HdfsRecordType.CHUNK;
+    @UriParam(label = "consumer")
+    private String recordDelimiter;
+    @UriParam(label = "consumer", defaultValue = "1")
+    private int recordsPerMessage = 1;
+    @UriParam(label = "consumer", defaultValue = "" + HdfsConstants.DEFAULT_MAX_RECORD_SIZE)
+    private int maxRecordSize = HdfsConstants.DEFAULT_MAX_RECORD_SIZE;
+    @UriParam(label = "consumer", defaultValue = "UTF-8")
+    private String charset = "UTF-8";
     @UriParam(label = "advanced", defaultValue = "" + HdfsConstants.DEFAULT_CHECK_IDLE_INTERVAL)
     private int checkIdleInterval = HdfsConstants.DEFAULT_CHECK_IDLE_INTERVAL;
     @UriParam(defaultValue = "true")
     private boolean connectOnStartup = true;
     @UriParam
     private String owner;
+    @UriParam(label = "producer")
+    private int maxOpenStreams;
+    @UriParam(label = "producer")
+    private String partitionExpression;
+    @UriParam(label = "advanced")
+    private long streamIdleTimeout;
+    @UriParam(label = "producer")
+    private int writerQueueSize;
+    @UriParam(label = "advanced", defaultValue = "" + HdfsConstants.DEFAULT_WRITER_BATCH_SIZE)
+    private int writerBatchSize = HdfsConstants.DEFAULT_WRITER_BATCH_SIZE;
+    @UriParam(label = "producer")
+    private boolean preOpenNextFile;
+    private HdfsConnection connection;
+    @UriParam(label = "producer", defaultValue = "WRITE")
+    private HdfsOperation operation = HdfsOperation.WRITE;
+    @UriParam(label = "producer", defaultValue = "" + HdfsConstants.DEFAULT_LOOKUP_MAX_READERS)
+    private int lookupMaxReaders = HdfsConstants.DEFAULT_LOOKUP_MAX_READERS;
+    @UriParam(label = "advanced", defaultValue = "" + HdfsConstants.DEFAULT_LOOKUP_READER_IDLE_TIMEOUT)
+    private long lookupReaderIdleTimeout = HdfsConstants.DEFAULT_LOOKUP_READER_IDLE_TIMEOUT;
+    @UriParam(label = "consumer", defaultValue = "1")
+    private int concurrentFiles = 1;
+    @UriParam(label = "consumer")
+    private int prefetchFiles;
+    @UriParam(label = "consumer")
+    private boolean streamingRead;
+    @UriParam(label = "consumer")
+    private boolean streamDownload;
+    @UriParam(label = "advanced")
+    private long readAhead;
+    @UriParam(label = "consumer")
+    private boolean incrementalListing;
+    @UriParam(label = "consumer")
+    private int maxFilesPerPoll;
+    @UriParam(label = "consumer")
+    private int maxMessagesPerPoll;
+    @UriParam(label = "consumer")
+    private boolean useInotify;
+    @UriParam(label = "consumer")
+    private String checkpointDirectory;
+    @UriParam(label = "advanced")
+    private HdfsCheckpointStore checkpointStore;
+    @UriParam(label = "consumer", defaultValue = "" + HdfsConstants.DEFAULT_CHECKPOINT_INTERVAL)
+    private long checkpointInterval = HdfsConstants.DEFAULT_CHECKPOINT_INTERVAL;
+    @UriParam(label = "consumer")
+    private long minAge;
+    @UriParam(label = "consumer")
+    private long maxAge;
+    @UriParam(label = "consumer")
+    private long minFileSize;
+    @UriParam(label = "consumer")
+    private long maxFileSize;
+    @UriParam(label = "consumer")
+    private boolean excludeEmptyFiles;
+    @UriParam(label = "consumer")
+    private String processedFileDirectory;
+    @UriParam(label = "consumer", defaultValue = "" + HdfsConstants.DEFAULT_PROCESSED_FILE_CAPACITY)
+    private int processedFileCapacity = HdfsConstants.DEFAULT_PROCESSED_FILE_CAPACITY;
+    @UriParam(label = "advanced")
+    private HdfsProcessedFileStore processedFileStore;
+    @UriParam(label = "consumer", defaultValue = "1")
+    private int rangeParallelism = 1;
+    @UriParam(label = "consumer", defaultValue = "true")
+    private boolean rangeOrdered = true;
 
     @UriParam
     private String kerberosNamedNodes;
@@ -100,6 +184,8 @@ public class HdfsConfiguration {
     private String kerberosUsername;
     @UriParam
     private String kerberosKeytabLocation;
+    @UriParam(defaultValue = "" + HdfsConstants.DEFAULT_KERBEROS_RELOGIN_INTERVAL)
+    private long kerberosReloginInterval = HdfsConstants.DEFAULT_KERBEROS_RELOGIN_INTERVAL;
 
     public HdfsConfiguration() {
     }
@@ -209,12 +295,52 @@ public class HdfsConfiguration {
         return strategies;
     }
 
+    private List<HdfsOutputStream.SyncPolicy> getSyncPolicies(Map<String, Object> hdfsSettings) {
+        List<HdfsOutputStream.SyncPolicy> policies = new ArrayList<>();
+
+        syncPolicy = getString(hdfsSettings, "syncPolicy", syncPolicy);
+
+        if (Objects.nonNull(syncPolicy)) {
+            String[] strpolicies = syncPolicy.split(",");
+            for (String strpolicy : strpolicies) {
+                String[] tokens = strpolicy.split(":");
+                if (tokens.length != 2) {
+                    throw new IllegalArgumentException("Wrong Sync Policy [syncPolicy" + "=" + syncPolicy + "]");
+                }
+                HdfsOutputStream.SyncPolicyType spt = HdfsOutputStream.SyncPolicyType.valueOf(tokens[0]);
+                long spv = Long.parseLong(tokens[1]);
+                policies.add(new HdfsOutputStream.SyncPolicy(spt, spv));
+            }
+        }
+        return policies;
+    }
+
+    private HdfsSyncDurability getSyncDurability(Map<String, Object> hdfsSettings, String param, HdfsSyncDurability dflt) {
+        String eit = (String) hdfsSettings.get(param);
+        if (eit != null) {
+            return HdfsSyncDurability.valueOf(eit);
+        } else {
+            return dflt;
+        }
+    }
+
     private List<String> getKerberosNamedNodeList(Map<String, Object> hdfsSettings) {
         kerberosNamedNodes = getString(hdfsSettings, "kerberosNamedNodes", kerberosNamedNodes);
         return Arrays.stream(kerberosNamedNodes.split(",")).distinct().collect(Collectors.toList());
     }
 
 
+    HdfsConnection getConnection() {
+        return connection;
+    }
+
+    /**
+     * The connection of the endpoint, which the streams of the endpoint share.
+     */
+    void setConnection(HdfsConnection connection) {
+        this.connection = connection;
+    }
+
     Configuration getJAASConfiguration() {
         Configuration auth = null;
         try {
@@ -243,9 +369,24 @@ public class HdfsConfiguration {
     }
 
     public void checkConsumerOptions() {
+        if (isUseInotify() && getFileSystemType() != HdfsFileSystemType.HDFS) {
+            throw new IllegalArgumentException("useInotify=true works only with the HDFS file system type");
+        }
+        if (isStreamDownload() && getFileType() != HdfsFileType.NORMAL_FILE) {
+            throw new IllegalArgumentException("streamDownload=true works only with NORMAL_FILEs");
+        }
+        if (getRecordType() == HdfsRecordType.DELIMITED && (getRecordDelimiter() == null || getRecordDelimiter().isEmpty())) {
+            throw new IllegalArgumentException("recordType=DELIMITED requires a recordDelimiter");
+        }
     }
 
     public void checkProducerOptions() {
+        if (getOperation() == HdfsOperation.LOOKUP && getFileType() != HdfsFileType.MAP_FILE && getFileType() != HdfsFileType.BLOOMMAP_FILE) {
+            throw new IllegalArgumentException("operation=LOOKUP works only with MAP_FILEs and BLOOMMAP_FILEs");
+        }
+        if (getWriterQueueSize() > 0 && getFileType() != HdfsFileType.NORMAL_FILE && getFileType() != HdfsFileType.SEQUENCE_FILE) {
+            throw new IllegalArgumentException("writerQueueSize works only with NORMAL_FILEs and SEQUENCE_FILEs");
+        }
         if (isAppend()) {
             if (!getSplitStrategies().isEmpty()) {
                 throw new IllegalArgumentException("Split Strategies incompatible with append=true");
@@ -286,6 +427,8 @@ public class HdfsConfiguration {
         pattern = getString(hdfsSettings, "pattern", pattern);
         chunkSize = getInteger(hdfsSettings, "chunkSize", chunkSize);
         splitStrategies = getSplitStrategies(hdfsSettings);
+        syncPolicies = getSyncPolicies(hdfsSettings);
+        syncDurability = getSyncDurability(hdfsSettings, "syncDurability", syncDurability);
 
         kerberosNamedNodeList = getKerberosNamedNodeList(hdfsSettings);
         kerberosConfigFileLocation = getString(hdfsSettings, "kerberosConfigFileLocation", kerberosConfigFileLocation);
@@ -365,7 +508,7 @@ public class HdfsConfiguration {
     }
 
     /**
-     * The buffer size used by HDFS
+     * The buffer size used by HDFS, and by the producer to copy the message bodies of normal files
      */
     public void setBufferSize(int bufferSize) {
         this.bufferSize = bufferSize;
@@ -503,8 +646,94 @@ public class HdfsConfiguration {
         return chunkSize;
     }
 
+    public HdfsChunkType getChunkType() {
+        return chunkType;
+    }
+
+    /**
+     * The type of the message bodies holding the chunks of a normal file: a ByteArrayOutputStream (STREAM), a byte array
+     * (BYTES), a ByteBuffer taken from a pool and given back to it when the exchange completes (POOLED_BUFFER), or a
+     * ByteBuffer read with zero-copy from the short-circuit local replicas when possible (ZERO_COPY).
+     */
+    public void setChunkType(HdfsChunkType chunkType) {
+        this.chunkType = chunkType;
+    }
+
+    public boolean isSkipChecksums() {
+        return skipChecksums;
+    }
+
     /**
-     * How often (time in millis) in to run the idle checker background task. This option is only in use if the splitter strategy is IDLE.
+     * Whether the ZERO_COPY chunks may be read without verifying their checksums. HDFS only maps the blocks in memory
+     * without checksum verification when they are cached by HDFS, so this allows zero-copy reads of all the short-circuit
+     * local replicas.
+     */
+    public void setSkipChecksums(boolean skipChecksums) {
+        this.skipChecksums = skipChecksums;
+    }
+
+    public HdfsRecordType getRecordType() {
+        return recordType;
+    }
+
+    /**
+     * How a normal file is split into messages: in chunks of the chunk size (CHUNK), in text lines (LINE), in text records
+     * ended by the recordDelimiter (DELIMITED), or in binary records preceded by their length as a four byte integer
+     * (LENGTH_PREFIXED). The text records are decoded with the charset option.
+     */
+    public void setRecordType(HdfsRecordType recordType) {
+        this.recordType = recordType;
+    }
+
+    public String getRecordDelimiter() {
+        return recordDelimiter;
+    }
+
+    /**
+     * The delimiter ending the records, when the recordType is DELIMITED.
+     */
+    public void setRecordDelimiter(String recordDelimiter) {
+        this.recordDelimiter = recordDelimiter;
+    }
+
+    public int getRecordsPerMessage() {
+        return recordsPerMessage;
+    }
+
+    /**
+     * The number of records per message, when the recordType is not CHUNK. When greater than one, the body is a list of
+     * the records.
+     */
+    public void setRecordsPerMessage(int recordsPerMessage) {
+        this.recordsPerMessage = recordsPerMessage;
+    }
+
+    public int getMaxRecordSize() {
+        return maxRecordSize;
+    }
+
+    /**
+     * The maximum size in bytes of a record, when the recordType is not CHUNK. A larger record, or a negative length of a
+     * LENGTH_PREFIXED record, fails the read of the file, so a corrupt file does not exhaust the memory.
+     */
+    public void setMaxRecordSize(int maxRecordSize) {
+        this.maxRecordSize = maxRecordSize;
+    }
+
+    public String getCharset() {
+        return charset;
+    }
+
+    /**
+     * The charset of the text records, when the recordType is LINE or DELIMITED.
+     */
+    public void setCharset(String charset) {
+        this.charset = charset;
+    }
+
+    /**
+     * How often (time in millis) in to run the idle checker background task. This option is only in use if the splitter strategy is IDLE,
+     * or if streamIdleTimeout is set in partitioned writer mode.
      */
     public void setCheckIdleInterval(int checkIdleInterval) {
         this.checkIdleInterval = checkIdleInterval;
@@ -536,12 +765,63 @@ public class HdfsConfiguration {
      * <li>BYTES a new file is created, and the old is closed when the number of written bytes is more than value</li>
      * <li>MESSAGES a new file is created, and the old is closed when the number of written messages is more than value</li>
      * <li>IDLE a new file is created, and the old is closed when no writing happened in the last value milliseconds</li>
+     * <li>INTERVAL a new file is created, and the old is closed at every boundary of an interval of value milliseconds.
+     * The intervals are aligned on the wall clock (UTC), so for example 3600000 rolls the files at the start of every hour</li>
      * </ul>
      */
     public void setSplitStrategy(String splitStrategy) {
         this.splitStrategy = splitStrategy;
     }
 
+    public String getSplitDirectoryPattern() {
+        return splitDirectoryPattern;
+    }
+
+    /**
+     * When the INTERVAL split strategy is used, the files of each interval are created in a sub directory named using
+     * this date time pattern (for example yyyy/MM/dd/HH), formatted with the start of the interval in UTC.
+     */
+    public void setSplitDirectoryPattern(String splitDirectoryPattern) {
+        this.splitDirectoryPattern = splitDirectoryPattern;
+    }
+
+    public List<HdfsOutputStream.SyncPolicy> getSyncPolicies() {
+        return syncPolicies;
+    }
+
+    public String getSyncPolicy() {
+        return syncPolicy;
+    }
+
+    /**
+     * Controls how often a sync point is written to the file, and the written data is made durable according to the
+     * syncDurability option. By default a SEQUENCE_FILE gets a sync point after every record, which bloats the file and
+     * defeats BLOCK compression.
+     * The syncPolicy option is defined as a string with the following syntax:
+     * <br/><tt>syncPolicy=SP:value,SP:value,...</tt>
+     * <br/>where SP can be:
+     * <ul>
+     * <li>RECORDS sync when at least value records have been written since the last sync</li>
+     * <li>BYTES sync when at least value bytes have been written since the last sync</li>
+     * <li>INTERVAL sync on the first write happening value milliseconds or more after the last sync</li>
+     * </ul>
+     */
+    public void setSyncPolicy(String syncPolicy) {
+        this.syncPolicy = syncPolicy;
+    }
+
+    public HdfsSyncDurability getSyncDurability() {
+        return syncDurability;
+    }
+
+    /**
+     * How durable the written data is made when the sync policy fires: NONE only writes the sync point, HFLUSH flushes
+     * the data to the data nodes (visible to new readers), and HSYNC also syncs it to disk on the data nodes.
+     */
+    public void setSyncDurability(HdfsSyncDurability syncDurability) {
+        this.syncDurability = syncDurability;
+    }
+
     public boolean isConnectOnStartup() {
         return connectOnStartup;
     }
@@ -567,6 +847,396 @@ public class HdfsConfiguration {
         this.owner = owner;
     }
 
+    public int getMaxOpenStreams() {
+        return maxOpenStreams;
+    }
+
+    /**
+     * Enables the partitioned writer mode when set to a value greater than zero. Every partition (see partitionExpression)
+     * is written to its own output stream, and up to this number of streams are kept open. When the limit is exceeded the
+     * least recently used stream is closed.
+     */
+    public void setMaxOpenStreams(int maxOpenStreams) {
+        this.maxOpenStreams = maxOpenStreams;
+    }
+
+    public String getPartitionExpression() {
+        return partitionExpression;
+    }
+
+    /**
+     * A simple language expression to compute the partition (path relative to the endpoint path) of each message
+     * in partitioned writer mode. If not set, then the CamelFileName header is used.
+     */
+    public void setPartitionExpression(String partitionExpression) {
+        this.partitionExpression = partitionExpression;
+    }
+
+    public long getStreamIdleTimeout() {
+        return streamIdleTimeout;
+    }
+
+    /**
+     * Time in millis after which an open stream of the partitioned writer mode is closed if nothing has been written to it.
+     * If not set, then the value of the IDLE split strategy is used, if any.
+     */
+    public void setStreamIdleTimeout(long streamIdleTimeout) {
+        this.streamIdleTimeout = streamIdleTimeout;
+    }
+
+    public int getWriterQueueSize() {
+        return writerQueueSize;
+    }
+
+    /**
+     * Enables the asynchronous group commit writer when set to a value greater than zero. Exchanges are queued (blocking when
+     * this many exchanges are waiting) and written by a dedicated writer thread, which flushes every stream once per group
+     * and only then completes the exchanges. This works only with NORMAL_FILEs and SEQUENCE_FILEs, as the other file types
+     * cannot be flushed. Without an IDLE or INTERVAL split strategy the stream is closed after every message, unless the
+     * HDFS_CLOSE header tells otherwise, so the exchanges gain nothing from being grouped.
+     */
+    public void setWriterQueueSize(int writerQueueSize) {
+        this.writerQueueSize = writerQueueSize;
+    }
+
+    public int getWriterBatchSize() {
+        return writerBatchSize;
+    }
+
+    /**
+     * The maximum number of queued exchanges the group commit writer writes before flushing. This option is only in use
+     * if writerQueueSize is set.
+     */
+    public void setWriterBatchSize(int writerBatchSize) {
+        this.writerBatchSize = writerBatchSize;
+    }
+
+    public boolean isPreOpenNextFile() {
+        return preOpenNextFile;
+    }
+
+    /**
+     * Whether to create the next file in the background when the current file is close to a BYTES or MESSAGES split,
+     * so the message triggering the split does not wait for the file system. The old file is then closed in the
+     * background as well.
+     */
+    public void setPreOpenNextFile(boolean preOpenNextFile) {
+        this.preOpenNextFile = preOpenNextFile;
+    }
+
+    public int getConcurrentFiles() {
+        return concurrentFiles;
+    }
+
+    /**
+     * The number of files the consumer reads in parallel. When greater than one, the files found by a poll are handed to a
+     * pool of this many threads, each reading its own file.
+     */
+    public void setConcurrentFiles(int concurrentFiles) {
+        this.concurrentFiles = concurrentFiles;
+    }
+
+    public HdfsOperation getOperation() {
+        return operation;
+    }
+
+    /**
+     * The operation of the producer: WRITE appends the messages to the file, while LOOKUP answers each message with the
+     * value stored for its key in the MAP_FILE or BLOOMMAP_FILE at the path, which makes the endpoint usable from enrich.
+     * The key is taken from the KEY header, or from the body when the header is not set.
+     */
+    public void setOperation(HdfsOperation operation) {
+        this.operation = operation;
+    }
+
+    public int getLookupMaxReaders() {
+        return lookupMaxReaders;
+    }
+
+    /**
+     * The maximum number of map file readers kept open between lookups, so a lookup costs a seek instead of opening the file.
+     * The maximum applies to each map file, so a directory of segments keeps up to this number of readers open for every
+     * segment, and it is the number of concurrent lookups which can read a map file without opening another reader.
+     */
+    public void setLookupMaxReaders(int lookupMaxReaders) {
+        this.lookupMaxReaders = lookupMaxReaders;
+    }
+
+    public long getLookupReaderIdleTimeout() {
+        return lookupReaderIdleTimeout;
+    }
+
+    /**
+     * Time in millis after which a map file reader which has not been used for a lookup is closed. This is also how long a
+     * listing of the map files under the path is reused before the path is listed again.
+     */
+    public void setLookupReaderIdleTimeout(long lookupReaderIdleTimeout) {
+        this.lookupReaderIdleTimeout = lookupReaderIdleTimeout;
+    }
+
+    public int getPrefetchFiles() {
+        return prefetchFiles;
+    }
+
+    /**
+     * The number of files claimed and opened ahead, in the background, while the current file is processed. The first
+     * record of each of these files is read ahead as well, so the processing never waits for a file to be opened. This is
+     * used when the files are read one after the other: not in batch mode, nor together with concurrentFiles.
+     */
+    public void setPrefetchFiles(int prefetchFiles) {
+        this.prefetchFiles = prefetchFiles;
+    }
+
+    public boolean isStreamingRead() {
+        return streamingRead;
+    }
+
+    /**
+     * Whether to read normal files straight from HDFS, instead of first copying them to a local temporary file. A directory
+     * of part files is read as the concatenation of the part files in name order. Files on the LOCAL file system are
+     * always read this way.
+     */
+    public void setStreamingRead(boolean streamingRead) {
+        this.streamingRead = streamingRead;
+    }
+
+    public boolean isStreamDownload() {
+        return streamDownload;
+    }
+
+    /**
+     * Whether to consume each normal file as a single message, whose body is an InputStream reading straight from the file
+     * system, instead of in chunks. The file is renamed with the read suffix when the exchange completes, or given back to
+     * be consumed again when the exchange fails.
+     */
+    public void setStreamDownload(boolean streamDownload) {
+        this.streamDownload = streamDownload;
+    }
+
+    public long getReadAhead() {
+        return readAhead;
+    }
+
+    /**
+     * The number of bytes HDFS reads ahead of the current position when streaming normal files. If not set, then the
+     * default of the file system is used.
+     */
+    public void setReadAhead(long readAhead) {
+        this.readAhead = readAhead;
+    }
+
+    public boolean isIncrementalListing() {
+        return incrementalListing;
+    }
+
+    /**
+     * Whether to list the directory page by page while consuming the files, instead of listing the whole directory before
+     * consuming the first file. The pattern is then matched on the file names only, and can not contain directories.
+     */
+    public void setIncrementalListing(boolean incrementalListing) {
+        this.incrementalListing = incrementalListing;
+    }
+
+    public int getMaxFilesPerPoll() {
+        return maxFilesPerPoll;
+    }
+
+    /**
+     * The maximum number of files consumed by a poll. The remaining files are consumed by the next polls. If not set, then
+     * all the listed files are consumed.
+     */
+    public void setMaxFilesPerPoll(int maxFilesPerPoll) {
+        this.maxFilesPerPoll = maxFilesPerPoll;
+    }
+
+    public int getMaxMessagesPerPoll() {
+        return maxMessagesPerPoll;
+    }
+
+    /**
+     * Enables the batch mode of the consumer when set to a value greater than zero. A poll then collects at most this many
+     * messages, continuing a file which was not completely consumed by the previous poll, and processes them as a batch
+     * with the CamelBatchIndex, CamelBatchSize and CamelBatchComplete properties set. In batch mode the files are read by
+     * the polling thread, so the concurrentFiles option is not in use.
+     */
+    public void setMaxMessagesPerPoll(int maxMessagesPerPoll) {
+        this.maxMessagesPerPoll = maxMessagesPerPoll;
+    }
+
+    public boolean isUseInotify() {
+        return useInotify;
+    }
+
+    /**
+     * Whether to find the new files from the HDFS inotify event stream, instead of listing the directory on every poll.
+     * The files closed or renamed under the path, and matching the pattern, are consumed; the directory is only listed on
+     * startup, and when events have been missed. This requires the HDFS file system type, and a user allowed to read the
+     * inotify events (a HDFS superuser).
+     */
+    public void setUseInotify(boolean useInotify) {
+        this.useInotify = useInotify;
+    }
+
+    public String getCheckpointDirectory() {
+        return checkpointDirectory;
+    }
+
+    /**
+     * A directory, on the local file system (file:///...) or on HDFS (hdfs://...), where the consumer keeps the position it
+     * reached in the files it is consuming. A file left partially consumed by a consumer which did not stop properly is
+     * then continued from there, instead of from the start. Positions are kept for NORMAL_FILE and SEQUENCE_FILE.
+     */
+    public void setCheckpointDirectory(String checkpointDirectory) {
+        this.checkpointDirectory = checkpointDirectory;
+    }
+
+    public HdfsCheckpointStore getCheckpointStore() {
+        return checkpointStore;
+    }
+
+    /**
+     * A custom store for the positions the consumer reached in the files it is consuming, used instead of the files of the
+     * checkpointDirectory option.
+     */
+    public void setCheckpointStore(HdfsCheckpointStore checkpointStore) {
+        this.checkpointStore = checkpointStore;
+    }
+
+    public long getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    /**
+     * How often (time in millis) the position reached in a file is stored, when checkpoints are enabled.
+     */
+    public void setCheckpointInterval(long checkpointInterval) {
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    public long getMinAge() {
+        return minAge;
+    }
+
+    /**
+     * The minimum time (in millis) since a file was last modified for it to be consumed, so the files still being written
+     * are left for a later poll. If not set, then the files are consumed regardless of their age.
+     */
+    public void setMinAge(long minAge) {
+        this.minAge = minAge;
+    }
+
+    public long getMaxAge() {
+        return maxAge;
+    }
+
+    /**
+     * The maximum time (in millis) since a file was last modified for it to be consumed. Older files are left untouched.
+     * If not set, then the files are consumed regardless of their age.
+     */
+    public void setMaxAge(long maxAge) {
+        this.maxAge = maxAge;
+    }
+
+    public long getMinFileSize() {
+        return minFileSize;
+    }
+
+    /**
+     * The minimum size (in bytes) of the files to consume. Smaller files are left untouched. Directories of part files are
+     * not filtered by size.
+     */
+    public void setMinFileSize(long minFileSize) {
+        this.minFileSize = minFileSize;
+    }
+
+    public long getMaxFileSize() {
+        return maxFileSize;
+    }
+
+    /**
+     * The maximum size (in bytes) of the files to consume. Larger files are left untouched. Directories of part files are
+     * not filtered by size. If not set, then there is no maximum.
+     */
+    public void setMaxFileSize(long maxFileSize) {
+        this.maxFileSize = maxFileSize;
+    }
+
+    public boolean isExcludeEmptyFiles() {
+        return excludeEmptyFiles;
+    }
+
+    /**
+     * Whether to leave the empty files untouched, instead of consuming them.
+     */
+    public void setExcludeEmptyFiles(boolean excludeEmptyFiles) {
+        this.excludeEmptyFiles = excludeEmptyFiles;
+    }
+
+    public String getProcessedFileDirectory() {
+        return processedFileDirectory;
+    }
+
+    /**
+     * A directory, on the local file system (file:///...) or on HDFS (hdfs://...), where the consumer keeps a log of the
+     * files it has consumed. The consumed files are then left in place, instead of being renamed with the opened and read
+     * suffixes, and a poll only costs a listing. A file is identified by its path, length and modification time, so a
+     * file which is replaced is consumed again.
+     */
+    public void setProcessedFileDirectory(String processedFileDirectory) {
+        this.processedFileDirectory = processedFileDirectory;
+    }
+
+    public int getProcessedFileCapacity() {
+        return processedFileCapacity;
+    }
+
+    /**
+     * The maximum number of consumed files the log of the processedFileDirectory option remembers, which bounds its memory
+     * (about 16 bytes per file) and its size on disk. The files which are no longer listed are forgotten first, so this
+     * must be larger than the number of files left in the consumed directory, otherwise files are consumed again.
+     */
+    public void setProcessedFileCapacity(int processedFileCapacity) {
+        this.processedFileCapacity = processedFileCapacity;
+    }
+
+    public HdfsProcessedFileStore getProcessedFileStore() {
+        return processedFileStore;
+    }
+
+    /**
+     * A custom store of the consumed files, used instead of the log of the processedFileDirectory option.
+     */
+    public void setProcessedFileStore(HdfsProcessedFileStore processedFileStore) {
+        this.processedFileStore = processedFileStore;
+    }
+
+    public int getRangeParallelism() {
+        return rangeParallelism;
+    }
+
+    /**
+     * The number of threads reading a single sequence file in parallel. When greater than one, a sequence file spanning
+     * several blocks is split at the block boundaries, and each range is read from the first sync point after its start
+     * up to the first sync point after its end. The ranges with a replica on the local host are read first. Each file read
+     * in ranges has its own threads, also when several files are read in parallel (see concurrentFiles). This is not used
+     * in batch mode, nor when checkpoints are enabled.
+     */
+    public void setRangeParallelism(int rangeParallelism) {
+        this.rangeParallelism = rangeParallelism;
+    }
+
+    public boolean isRangeOrdered() {
+        return rangeOrdered;
+    }
+
+    /**
+     * Whether the records of a sequence file read in parallel ranges (see rangeParallelism) are emitted in the order of the
+     * file. If false, then the records are emitted as soon as they are read, which is faster.
+     */
+    public void setRangeOrdered(boolean rangeOrdered) {
+        this.rangeOrdered = rangeOrdered;
+    }
+
     public String getKerberosNamedNodes() {
         return kerberosNamedNodes;
     }
@@ -603,6 +1273,18 @@ public class HdfsConfiguration {
         this.kerberosKeytabLocation = kerberosKeytabLocation;
     }
 
+    public long getKerberosReloginInterval() {
+        return kerberosReloginInterval;
+    }
+
+    /**
+     * Interval in millis at which the endpoint checks its Kerberos ticket, and logs in again from the keytab when the
+     * ticket is about to expire.
+     */
+    public void setKerberosReloginInterval(long kerberosReloginInterval) {
+        this.kerberosReloginInterval = kerberosReloginInterval;
+    }
+
     public boolean isKerberosAuthentication() {
         return Objects.nonNull(kerberosNamedNodes) && Objects.nonNull(kerberosConfigFileLocation) && Objects.nonNull(kerberosUsername) && Objects.nonNull(kerberosKeytabLocation)
                 && !kerberosNamedNodes.isEmpty() && !kerberosConfigFileLocation.isEmpty() && !kerberosUsername.isEmpty() && !kerberosKeytabLocation.isEmpty();
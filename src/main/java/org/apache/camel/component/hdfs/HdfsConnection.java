@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.hdfs;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.camel.component.hdfs.kerberos.KerberosConfiguration;
+import org.apache.camel.util.IOHelper;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The connection of an endpoint to its file systems, shared by all the streams the endpoint opens.
+ * <p/>
+ * The Hadoop configuration is prepared once, which saves parsing the configuration files for every stream, and one file
+ * system instance is kept per scheme and authority. The instances are not taken from the shared cache of Hadoop, so
+ * closing the connection when the endpoint stops does not close the file systems of other endpoints. A closed connection
+ * connects again on its next use.
+ * <p/>
+ * With Kerberos the connection logs in once from the keytab, as the login user of the process, so the file systems
+ * Hadoop resolves from a path inside the readers and writers of the file types are authenticated as well. The ticket of
+ * the login user is renewed with {@link #relogin()}.
+ */
+final class HdfsConnection implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HdfsConnection.class);
+
+    private final HdfsConfiguration endpointConfig;
+    private final Map<String, FileSystem> fileSystems = new HashMap<>();
+    private Configuration configuration;
+    private UserGroupInformation user;
+
+    HdfsConnection(HdfsConfiguration endpointConfig) {
+        this.endpointConfig = endpointConfig;
+    }
+
+    synchronized Configuration getConf() throws IOException {
+        if (configuration == null) {
+            configuration = newConfiguration(endpointConfig);
+        }
+        return configuration;
+    }
+
+    /**
+     * The file system of the given path, connected on first use.
+     */
+    synchronized FileSystem getFileSystem(String hdfsPath) throws IOException {
+        URI uri = URI.create(hdfsPath);
+        String key = uri.getScheme() + "://" + uri.getAuthority();
+        FileSystem fileSystem = fileSystems.get(key);
+        if (fileSystem == null) {
+            Configuration conf = getConf();
+            LOG.debug("Connecting to file system {}", key);
+            if (endpointConfig.isKerberosAuthentication()) {
+                fileSystem = doAs(getUser(conf), () -> FileSystem.newInstance(uri, conf));
+            } else {
+                fileSystem = FileSystem.newInstance(uri, conf);
+            }
+            fileSystems.put(key, fileSystem);
+        }
+        return fileSystem;
+    }
+
+    private UserGroupInformation getUser(Configuration conf) throws IOException {
+        if (user == null) {
+            LOG.debug("Logging in as {} from keytab {}", endpointConfig.getKerberosUsername(), endpointConfig.getKerberosKeytabLocation());
+            login(conf, endpointConfig);
+            user = UserGroupInformation.getLoginUser();
+        }
+        return user;
+    }
+
+    /**
+     * Whether the connection has logged in to Kerberos.
+     */
+    synchronized boolean isLoggedIn() {
+        return user != null;
+    }
+
+    private static <T> T doAs(UserGroupInformation user, PrivilegedExceptionAction<T> action) throws IOException {
+        try {
+            return user.doAs(action);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        }
+    }
+
+    /**
+     * Logs in again from the keytab if the Kerberos ticket is about to expire. This does nothing before the first login,
+     * and talks to the KDC only when the ticket has to be renewed.
+     */
+    void relogin() {
+        if (!isLoggedIn()) {
+            return;
+        }
+        try {
+            // the login user, as another endpoint may have logged in again since
+            UserGroupInformation.getLoginUser().checkTGTAndReloginFromKeytab();
+        } catch (IOException e) {
+            LOG.warn("Failed to renew the Kerberos ticket of {}. Caused by: [{}]", endpointConfig.getKerberosUsername(), e.getMessage());
+            LOG.debug("", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        List<FileSystem> answer;
+        synchronized (this) {
+            answer = new ArrayList<>(fileSystems.values());
+            fileSystems.clear();
+            configuration = null;
+            user = null;
+        }
+        for (FileSystem fileSystem : answer) {
+            IOHelper.close(fileSystem, "file system", LOG);
+        }
+    }
+
+    static Configuration newConfiguration(HdfsConfiguration endpointConfig) throws IOException {
+        if (endpointConfig.isKerberosAuthentication()) {
+            List<String> namedNodes = endpointConfig.getKerberosNamedNodeList();
+            String kerberosConfigFileLocation = endpointConfig.getKerberosConfigFileLocation();
+            return new KerberosConfiguration(namedNodes, kerberosConfigFileLocation, endpointConfig.getReplication());
+        } else {
+            return new Configuration();
+        }
+    }
+
+    static void login(Configuration configuration, HdfsConfiguration endpointConfig) throws IOException {
+        if (endpointConfig.isKerberosAuthentication()) {
+            String userName = endpointConfig.getKerberosUsername();
+            String keytabLocation = endpointConfig.getKerberosKeytabLocation();
+            ((KerberosConfiguration) configuration).loginWithKeytab(userName, keytabLocation);
+        }
+    }
+}
@@ -44,6 +44,22 @@ public final class HdfsConstants {
 
     public static final int DEFAULT_CHECK_IDLE_INTERVAL = 500;
 
+    public static final int DEFAULT_WRITER_BATCH_SIZE = 100;
+
+    public static final double PRE_OPEN_THRESHOLD = 0.9;
+
+    public static final long DEFAULT_CHECKPOINT_INTERVAL = 1000L;
+
+    public static final int DEFAULT_LOOKUP_MAX_READERS = 10;
+
+    public static final long DEFAULT_LOOKUP_READER_IDLE_TIMEOUT = 60000L;
+
+    public static final long DEFAULT_KERBEROS_RELOGIN_INTERVAL = 60000L;
+
+    public static final int DEFAULT_PROCESSED_FILE_CAPACITY = 1000000;
+
+    public static final int DEFAULT_MAX_RECORD_SIZE = 64 * 1024 * 1024;
+
     public static final String HDFS_CLOSE = "CamelHdfsClose";
 
     private HdfsConstants() {
@@ -16,32 +16,74 @@
  */
 package org.apache.camel.component.hdfs;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import javax.security.auth.login.Configuration;
 
 import org.apache.camel.Exchange;
 import org.apache.camel.Message;
 import org.apache.camel.Processor;
-import org.apache.camel.support.ScheduledPollConsumer;
+import org.apache.camel.api.management.ManagedAttribute;
+import org.apache.camel.api.management.ManagedOperation;
+import org.apache.camel.api.management.ManagedResource;
+import org.apache.camel.support.ScheduledBatchPollingConsumer;
+import org.apache.camel.support.SynchronizationAdapter;
+import org.apache.camel.support.UnitOfWorkHelper;
 import org.apache.camel.util.IOHelper;
 import org.apache.commons.lang.StringUtils;
 import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.GlobPattern;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.fs.PathFilter;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.apache.hadoop.hdfs.DFSInotifyEventInputStream;
+import org.apache.hadoop.hdfs.client.HdfsAdmin;
+import org.apache.hadoop.hdfs.inotify.Event;
+import org.apache.hadoop.hdfs.inotify.EventBatch;
+import org.apache.hadoop.hdfs.inotify.MissingEventsException;
 
-public final class HdfsConsumer extends ScheduledPollConsumer {
+@ManagedResource(description = "Managed HDFS consumer")
+public final class HdfsConsumer extends ScheduledBatchPollingConsumer {
 
     public static final long DEFAULT_CONSUMER_INITIAL_DELAY = 10 * 1000L;
 
+    private static final long INOTIFY_POLL_TIMEOUT = 1000L;
+
     private final HdfsConfiguration config;
     private final StringBuilder hdfsPath;
     private final Processor processor;
-    private final ReadWriteLock rwlock = new ReentrantReadWriteLock();
-    private volatile HdfsInputStream inputStream;
+    private volatile ExecutorService executorService;
+    private volatile ExecutorService prefetchExecutorService;
+    private HdfsInputStream pendingInputStream;
+    private DFSInotifyEventInputStream eventStream;
+    private final Set<String> changedPaths = new LinkedHashSet<>();
+    private HdfsCheckpointStore checkpointStore;
+    private HdfsProcessedFileStore processedFileStore;
+    private HdfsFileProcessedFileStore processedFileLog;
+    private final ConcurrentMap<String, String> claimedFiles = new ConcurrentHashMap<>();
+    private final HdfsReadStatistics readStatistics = new HdfsReadStatistics();
+    private volatile boolean recovered;
 
     public HdfsConsumer(HdfsEndpoint endpoint, Processor processor, HdfsConfiguration config) {
         super(endpoint, processor);
@@ -56,16 +98,89 @@ public final class HdfsConsumer extends ScheduledPollConsumer {
         return (HdfsEndpoint) super.getEndpoint();
     }
 
+    @ManagedAttribute(description = "Number of ZERO_COPY chunks read with zero-copy")
+    public long getZeroCopyReads() {
+        return readStatistics.getZeroCopyReads();
+    }
+
+    @ManagedAttribute(description = "Number of bytes of the ZERO_COPY chunks read with zero-copy")
+    public long getZeroCopyBytes() {
+        return readStatistics.getZeroCopyBytes();
+    }
+
+    @ManagedAttribute(description = "Number of ZERO_COPY chunks copied, as zero-copy was not possible")
+    public long getCopyReads() {
+        return readStatistics.getCopyReads();
+    }
+
+    @ManagedAttribute(description = "Number of bytes of the ZERO_COPY chunks copied, as zero-copy was not possible")
+    public long getCopyBytes() {
+        return readStatistics.getCopyBytes();
+    }
+
+    @ManagedOperation(description = "Resets the read statistics")
+    public void resetReadStatistics() {
+        readStatistics.reset();
+    }
+
     @Override
     protected void doStart() throws Exception {
         super.doStart();
 
+        checkpointStore = config.getCheckpointStore();
+        if (checkpointStore == null && config.getCheckpointDirectory() != null) {
+            String directory = config.getCheckpointDirectory();
+            checkpointStore = new HdfsFileCheckpointStore(directory, HdfsInfoFactory.newHdfsInfo(directory, config).getFileSystem());
+        }
+        recovered = false;
+
+        processedFileStore = config.getProcessedFileStore();
+        if (processedFileStore == null && config.getProcessedFileDirectory() != null) {
+            String directory = config.getProcessedFileDirectory();
+            processedFileLog = new HdfsFileProcessedFileStore(directory, HdfsInfoFactory.newHdfsInfo(directory, config).getFileSystem(),
+                    config.getProcessedFileCapacity());
+            processedFileStore = processedFileLog;
+        }
+
+        if (config.getConcurrentFiles() > 1) {
+            executorService = getEndpoint().getCamelContext().getExecutorServiceManager().newFixedThreadPool(this, "HdfsConsumer", config.getConcurrentFiles());
+        }
+        if (config.getPrefetchFiles() > 0) {
+            prefetchExecutorService = getEndpoint().getCamelContext().getExecutorServiceManager().newFixedThreadPool(this, "HdfsPrefetch", config.getPrefetchFiles());
+        }
+
         if (config.isConnectOnStartup()) {
             // setup hdfs if configured to do on startup
             setupHdfs(true);
         }
     }
 
+    @Override
+    protected void doStop() throws Exception {
+        super.doStop();
+
+        if (executorService != null) {
+            getEndpoint().getCamelContext().getExecutorServiceManager().shutdownNow(executorService);
+            executorService = null;
+        }
+        if (prefetchExecutorService != null) {
+            getEndpoint().getCamelContext().getExecutorServiceManager().shutdownNow(prefetchExecutorService);
+            prefetchExecutorService = null;
+        }
+        eventStream = null;
+        changedPaths.clear();
+        if (pendingInputStream != null) {
+            // the file has only been partially consumed, so give it back to be consumed again
+            releaseFile(pendingInputStream);
+            pendingInputStream = null;
+        }
+        claimedFiles.clear();
+        if (processedFileLog != null) {
+            IOHelper.close(processedFileLog, "processed file log", log);
+            processedFileLog = null;
+        }
+    }
+
     private HdfsInfo setupHdfs(boolean onStartup) throws Exception {
         // if we are starting up then log at info level, and if runtime then log at debug level to not flood the log
         if (onStartup) {
@@ -101,6 +216,446 @@ public final class HdfsConsumer extends ScheduledPollConsumer {
     }
 
     protected int doPoll() throws Exception {
+        if (getMaxMessagesPerPoll() > 0) {
+            return doPollBatch();
+        }
+
+        int numMessages = 0;
+
+        HdfsInfo info = setupHdfs(false);
+        RemoteIterator<FileStatus> fileStatuses = listFiles(info);
+
+        if (executorService == null && prefetchExecutorService != null) {
+            return doPollPrefetching(info, fileStatuses);
+        }
+
+        ExecutorService executor = executorService;
+        List<Future<Integer>> futures = new ArrayList<>();
+        int numFiles = 0;
+        while ((config.getMaxFilesPerPoll() <= 0 || numFiles < config.getMaxFilesPerPoll()) && fileStatuses.hasNext()) {
+            FileStatus status = fileStatuses.next();
+
+            if (!isCandidate(status, info)) {
+                continue;
+            }
+
+            numFiles++;
+            if (executor == null) {
+                numMessages += processFile(status);
+            } else {
+                // each file is claimed by renaming it, so the workers never read the same file
+                futures.add(executor.submit(() -> {
+                    Configuration auth = config.getJAASConfiguration();
+                    try {
+                        return processFile(status);
+                    } finally {
+                        config.setJAASConfiguration(auth);
+                    }
+                }));
+            }
+        }
+
+        // wait for all the files, and only then report the first failure
+        Exception failure = null;
+        for (Future<Integer> future : futures) {
+            try {
+                numMessages += future.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+
+        return numMessages;
+    }
+
+    /**
+     * Processes the files one after the other, while the next files are claimed and opened in the background, and their
+     * first record read, so the processing does not wait for the file system to open the files.
+     */
+    private int doPollPrefetching(HdfsInfo info, RemoteIterator<FileStatus> fileStatuses) throws Exception {
+        // the files opened ahead of the current file
+        Queue<Future<HdfsInputStream>> prefetched = new LinkedList<>();
+        Future<HdfsInputStream> current = null;
+        int numMessages = 0;
+        int numFiles = 0;
+        try {
+            while (true) {
+                current = prefetched.poll();
+                if (current == null) {
+                    current = prefetchNext(info, fileStatuses, numFiles);
+                    if (current == null) {
+                        return numMessages;
+                    }
+                    numFiles++;
+                }
+                while (prefetched.size() < config.getPrefetchFiles()) {
+                    Future<HdfsInputStream> next = prefetchNext(info, fileStatuses, numFiles);
+                    if (next == null) {
+                        break;
+                    }
+                    numFiles++;
+                    prefetched.add(next);
+                }
+
+                Future<HdfsInputStream> future = current;
+                current = null;
+                HdfsInputStream inputStream = getPrefetched(future);
+                if (inputStream != null) {
+                    numMessages += processInputStream(inputStream);
+                }
+            }
+        } finally {
+            // give back the files opened ahead, when the poll fails or the consumer stops
+            if (current != null) {
+                prefetched.add(current);
+            }
+            for (Future<HdfsInputStream> future : prefetched) {
+                try {
+                    HdfsInputStream inputStream = future.get();
+                    if (inputStream != null) {
+                        releaseFile(inputStream);
+                    }
+                } catch (Exception e) {
+                    // the file has not been opened
+                    log.debug("Error prefetching file. This exception is ignored.", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Claims and opens the next file of the poll in the background, or returns null when there are no more files to poll.
+     */
+    private Future<HdfsInputStream> prefetchNext(HdfsInfo info, RemoteIterator<FileStatus> fileStatuses, int numFiles) throws IOException {
+        while ((config.getMaxFilesPerPoll() <= 0 || numFiles < config.getMaxFilesPerPoll()) && fileStatuses.hasNext()) {
+            FileStatus status = fileStatuses.next();
+            if (!isCandidate(status, info)) {
+                continue;
+            }
+            return prefetchExecutorService.submit(() -> {
+                Configuration auth = config.getJAASConfiguration();
+                try {
+                    HdfsInputStream inputStream = openFile(status);
+                    // the records of a file read in ranges are not read through the input stream
+                    if (inputStream != null && !config.isStreamDownload() && !(isRangeRead() && status.getLen() > status.getBlockSize())) {
+                        inputStream.prefetch();
+                    }
+                    return inputStream;
+                } finally {
+                    config.setJAASConfiguration(auth);
+                }
+            });
+        }
+        return null;
+    }
+
+    private HdfsInputStream getPrefetched(Future<HdfsInputStream> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    /**
+     * Polls in batch mode: the records of the files are collected up to maxMessagesPerPoll, and then processed as a batch.
+     * A file which has not been consumed completely is continued by the next poll.
+     */
+    private int doPollBatch() throws Exception {
+        int maxMessages = getMaxMessagesPerPoll();
+        Queue<Object> exchanges = new LinkedList<>();
+        // the consumed files, with the number of exchanges of the batch up to their last record
+        Map<HdfsInputStream, Integer> consumed = new LinkedHashMap<>();
+        int total = 0;
+        try {
+            if (pendingInputStream != null) {
+                HdfsInputStream inputStream = pendingInputStream;
+                pendingInputStream = null;
+                readRecords(inputStream, exchanges, maxMessages, consumed);
+            }
+
+            if (pendingInputStream == null && exchanges.size() < maxMessages) {
+                HdfsInfo info = setupHdfs(false);
+                RemoteIterator<FileStatus> fileStatuses = listFiles(info);
+                int numFiles = 0;
+                while (pendingInputStream == null && exchanges.size() < maxMessages
+                        && (config.getMaxFilesPerPoll() <= 0 || numFiles < config.getMaxFilesPerPoll()) && fileStatuses.hasNext()) {
+                    FileStatus status = fileStatuses.next();
+                    if (!isCandidate(status, info)) {
+                        continue;
+                    }
+
+                    HdfsInputStream inputStream = openFile(status);
+                    if (inputStream == null) {
+                        continue;
+                    }
+                    numFiles++;
+                    readRecords(inputStream, exchanges, maxMessages, consumed);
+                }
+            }
+
+            total = exchanges.size();
+            int answer = processBatch(exchanges);
+            if (pendingInputStream != null && checkpointStore != null && exchanges.isEmpty()) {
+                saveCheckpoint(pendingInputStream);
+            }
+            return answer;
+        } finally {
+            // the files are only completed once all their records have been processed, while the files of the records
+            // left over, when the batch failed or stopped early, are given back to be consumed again
+            int processed = total - exchanges.size();
+            for (Map.Entry<HdfsInputStream, Integer> entry : consumed.entrySet()) {
+                if (entry.getValue() <= processed) {
+                    completeFile(entry.getKey());
+                } else {
+                    releaseFile(entry.getKey());
+                }
+            }
+            if (!exchanges.isEmpty()) {
+                if (pendingInputStream != null) {
+                    releaseFile(pendingInputStream);
+                    pendingInputStream = null;
+                }
+                discardExchanges(exchanges);
+            }
+        }
+    }
+
+    /**
+     * Fails the exchanges which have not been processed, so their completions give back their files and buffers.
+     */
+    private void discardExchanges(Queue<Object> exchanges) {
+        for (Object leftover : exchanges) {
+            Exchange exchange = (Exchange) leftover;
+            exchange.setException(new RejectedExecutionException("The batch stopped before the exchange was processed"));
+            UnitOfWorkHelper.doneSynchronizations(exchange, exchange.handoverCompletions(), log);
+        }
+        exchanges.clear();
+    }
+
+    /**
+     * Reads the records of the file until the batch is full. The file is kept as pending if it has more records.
+     */
+    private void readRecords(HdfsInputStream inputStream, Queue<Object> exchanges, int maxMessages, Map<HdfsInputStream, Integer> consumed) {
+        if (config.isStreamDownload()) {
+            // the file is completed by its exchange
+            exchanges.add(createStreamExchange(inputStream));
+            return;
+        }
+        Holder<Object> key = new Holder<>();
+        Holder<Object> value = new Holder<>();
+        while (exchanges.size() < maxMessages) {
+            if (inputStream.next(key, value) < 0) {
+                consumed.put(inputStream, exchanges.size());
+                return;
+            }
+            exchanges.add(createExchange(inputStream, key, value));
+        }
+        pendingInputStream = inputStream;
+    }
+
+    @Override
+    public int processBatch(Queue<Object> exchanges) throws Exception {
+        int total = exchanges.size();
+
+        for (int index = 0; index < total && isBatchAllowed(); index++) {
+            Exchange exchange = (Exchange) exchanges.poll();
+            // add current index and total as properties
+            exchange.setProperty(Exchange.BATCH_INDEX, index);
+            exchange.setProperty(Exchange.BATCH_SIZE, total);
+            exchange.setProperty(Exchange.BATCH_COMPLETE, index == total - 1);
+
+            // update pending number of exchanges
+            pendingExchanges = total - index - 1;
+
+            processExchange(exchange);
+        }
+
+        return total;
+    }
+
+    private boolean isCandidate(FileStatus status, HdfsInfo info) throws IOException {
+        // the filters on the listed status come first, as they cost no call to the file system
+        if (!matchesStatus(status)) {
+            if (log.isTraceEnabled()) {
+                log.trace("Skipping file: {} as not matching the age or size filters", status.getPath());
+            }
+            return false;
+        }
+
+        if (normalFileIsDirectoryNoSuccessFile(status, info)) {
+            return false;
+        }
+
+        if (processedFileStore != null) {
+            String path = status.getPath().toString();
+            if (claimedFiles.containsKey(path) || processedFileStore.contains(processedFileKey(status))) {
+                return false;
+            }
+        }
+
+        if (config.getOwner() != null) {
+            // must match owner
+            if (!config.getOwner().equals(status.getOwner())) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Skipping file: {} as not matching owner: {}", status.getPath(), config.getOwner());
+                }
+                return false;
+            }
+        }
+
+        if (eventStream != null) {
+            changedPaths.remove(Path.getPathWithoutSchemeAndAuthority(status.getPath()).toString());
+        }
+        return true;
+    }
+
+    private boolean matchesStatus(FileStatus status) {
+        long age = System.currentTimeMillis() - status.getModificationTime();
+        if (config.getMinAge() > 0 && age < config.getMinAge()) {
+            return false;
+        }
+        if (config.getMaxAge() > 0 && age > config.getMaxAge()) {
+            return false;
+        }
+        if (status.isFile()) {
+            if (config.isExcludeEmptyFiles() && status.getLen() == 0) {
+                return false;
+            }
+            if (status.getLen() < config.getMinFileSize()) {
+                return false;
+            }
+            if (config.getMaxFileSize() > 0 && status.getLen() > config.getMaxFileSize()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Lists the files to consume. In incremental listing mode the directory is listed page by page while the files are
+     * consumed, and the pattern is matched on the file names client side, so the whole listing is never held in memory.
+     */
+    private RemoteIterator<FileStatus> listFiles(HdfsInfo info) throws IOException {
+        if (checkpointStore != null && processedFileStore == null && !recovered) {
+            recoverOpenedFiles(info);
+            recovered = true;
+        }
+        if (config.isUseInotify()) {
+            if (eventStream != null) {
+                return listChangedFiles(info);
+            }
+            // the event stream is opened before the full listing, so no file closed in between is missed
+            eventStream = new HdfsAdmin(info.getFileSystem().getUri(), info.getConf()).getInotifyEventStream();
+        }
+        return listAllFiles(info);
+    }
+
+    /**
+     * Lists the files closed or renamed under the endpoint path since the previous poll, as reported by the inotify event
+     * stream. The files not consumed by a poll (see maxFilesPerPoll) are kept for the next poll.
+     */
+    private RemoteIterator<FileStatus> listChangedFiles(HdfsInfo info) throws IOException {
+        Path dir = Path.getPathWithoutSchemeAndAuthority(info.getPath());
+        GlobPattern pattern = new GlobPattern(config.getPattern());
+        try {
+            EventBatch batch = eventStream.poll(INOTIFY_POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+            while (batch != null) {
+                for (Event event : batch.getEvents()) {
+                    String path = null;
+                    if (event.getEventType() == Event.EventType.CLOSE) {
+                        path = ((Event.CloseEvent) event).getPath();
+                    } else if (event.getEventType() == Event.EventType.RENAME) {
+                        path = ((Event.RenameEvent) event).getDstPath();
+                    }
+                    if (path != null && isWatched(new Path(path), dir, pattern)) {
+                        changedPaths.add(path);
+                    }
+                }
+                batch = eventStream.poll();
+            }
+        } catch (MissingEventsException e) {
+            log.warn("Missed file system events, falling back to a full listing. Caused by: [{}]", e.getMessage());
+            changedPaths.clear();
+            eventStream = new HdfsAdmin(info.getFileSystem().getUri(), info.getConf()).getInotifyEventStream();
+            return listAllFiles(info);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // the changed paths are only forgotten once accepted by isCandidate, or rejected for good, so a file which is
+        // only too recent for minAge is listed again by the next polls
+        Iterator<String> it = new ArrayList<>(changedPaths).iterator();
+        return new RemoteIterator<FileStatus>() {
+            private FileStatus next;
+
+            @Override
+            public boolean hasNext() throws IOException {
+                while (next == null && it.hasNext()) {
+                    String changedPath = it.next();
+                    Path path = info.getFileSystem().makeQualified(new Path(changedPath));
+                    try {
+                        next = info.getFileSystem().getFileStatus(path);
+                    } catch (FileNotFoundException e) {
+                        // already consumed, or renamed again
+                        changedPaths.remove(changedPath);
+                    }
+                    if (next != null && isRejectedForGood(next)) {
+                        changedPaths.remove(changedPath);
+                        next = null;
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public FileStatus next() throws IOException {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                FileStatus answer = next;
+                next = null;
+                return answer;
+            }
+        };
+    }
+
+    /**
+     * Whether a changed file is rejected by a filter which does not accept it later on, unless the file changes again,
+     * which is then reported by a new event. The pattern is already matched when the event is received.
+     */
+    private boolean isRejectedForGood(FileStatus status) {
+        if (config.getMaxAge() > 0 && System.currentTimeMillis() - status.getModificationTime() > config.getMaxAge()) {
+            return true;
+        }
+        if (status.isFile()) {
+            if ((config.isExcludeEmptyFiles() && status.getLen() == 0) || status.getLen() < config.getMinFileSize()
+                    || (config.getMaxFileSize() > 0 && status.getLen() > config.getMaxFileSize())) {
+                return true;
+            }
+        }
+        if (config.getOwner() != null && !config.getOwner().equals(status.getOwner())) {
+            return true;
+        }
+        return processedFileStore != null && processedFileStore.contains(processedFileKey(status));
+    }
+
+    private boolean isWatched(Path path, Path dir, GlobPattern pattern) {
+        if (path.equals(dir)) {
+            // the endpoint path is the file itself
+            return true;
+        }
+        String name = path.getName();
+        return dir.equals(path.getParent()) && pattern.matches(name)
+                && !(name.endsWith(config.getOpenedSuffix()) || name.endsWith(config.getReadSuffix()));
+    }
+
+    private RemoteIterator<FileStatus> listAllFiles(HdfsInfo info) throws IOException {
         class ExcludePathFilter implements PathFilter {
             @Override
             public boolean accept(Path path) {
@@ -108,81 +663,292 @@ public final class HdfsConsumer extends ScheduledPollConsumer {
             }
         }
 
-        int numMessages = 0;
-
-        HdfsInfo info = setupHdfs(false);
         FileStatus[] fileStatuses;
         if (info.getFileSystem().isFile(info.getPath())) {
             fileStatuses = info.getFileSystem().globStatus(info.getPath());
+        } else if (config.isIncrementalListing()) {
+            RemoteIterator<FileStatus> it = info.getFileSystem().listStatusIterator(info.getPath());
+            GlobPattern pattern = new GlobPattern(config.getPattern());
+            PathFilter filter = new ExcludePathFilter();
+            return new RemoteIterator<FileStatus>() {
+                private FileStatus next;
+
+                @Override
+                public boolean hasNext() throws IOException {
+                    while (next == null && it.hasNext()) {
+                        FileStatus status = it.next();
+                        if (pattern.matches(status.getPath().getName()) && filter.accept(status.getPath())) {
+                            next = status;
+                        }
+                    }
+                    return next != null;
+                }
+
+                @Override
+                public FileStatus next() throws IOException {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    FileStatus answer = next;
+                    next = null;
+                    return answer;
+                }
+            };
         } else {
             Path pattern = info.getPath().suffix("/" + this.config.getPattern());
             fileStatuses = info.getFileSystem().globStatus(pattern, new ExcludePathFilter());
         }
 
-        fileStatuses = Optional.ofNullable(fileStatuses).orElse(new FileStatus[0]);
-
-        for (FileStatus status : fileStatuses) {
+        Iterator<FileStatus> it = Arrays.asList(Optional.ofNullable(fileStatuses).orElse(new FileStatus[0])).iterator();
+        return new RemoteIterator<FileStatus>() {
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
 
-            if (normalFileIsDirectoryNoSuccessFile(status, info)) {
-                continue;
+            @Override
+            public FileStatus next() {
+                return it.next();
             }
+        };
+    }
+
+    private int processFile(FileStatus status) throws IOException {
+        HdfsInputStream inputStream = openFile(status);
+        if (inputStream == null) {
+            return 0;
+        }
+        return processInputStream(inputStream);
+    }
 
-            if (config.getOwner() != null) {
-                // must match owner
-                if (!config.getOwner().equals(status.getOwner())) {
-                    if (log.isDebugEnabled()) {
-                        log.debug("Skipping file: {} as not matching owner: {}", status.getPath(), config.getOwner());
+    private int processInputStream(HdfsInputStream inputStream) throws IOException {
+        if (config.isStreamDownload()) {
+            processExchange(createStreamExchange(inputStream));
+            return 1;
+        }
+
+        int numMessages = 0;
+        try {
+            Holder<Object> key = new Holder<>();
+            Holder<Object> value = new Holder<>();
+            if (isRangeRead()) {
+                HdfsInfo info = HdfsInfoFactory.newHdfsInfo(inputStream.getOpenedPath(), config);
+                List<HdfsSequenceFileRangeReader.Range> ranges = HdfsSequenceFileRangeReader.split(info.getFileSystem(), info.getFileSystem().getFileStatus(info.getPath()));
+                if (ranges.size() > 1) {
+                    log.debug("Reading file {} in {} ranges", inputStream.getActualPath(), ranges.size());
+                    // each file has its own threads, as with concurrentFiles the ranges of a file waiting for its first range
+                    // could otherwise take all the threads of a shared pool
+                    ExecutorService rangeExecutor = getEndpoint().getCamelContext().getExecutorServiceManager().newFixedThreadPool(this, "HdfsRangeReader", config.getRangeParallelism());
+                    try (HdfsSequenceFileRangeReader reader = new HdfsSequenceFileRangeReader(info.getConf(), info.getPath(), ranges, config.isRangeOrdered(), rangeExecutor)) {
+                        while (reader.next(key, value)) {
+                            processExchange(createExchange(inputStream, key, value));
+                            numMessages++;
+                        }
+                    } finally {
+                        getEndpoint().getCamelContext().getExecutorServiceManager().shutdownNow(rangeExecutor);
                     }
-                    continue;
+                    return numMessages;
                 }
             }
 
-            try {
-                this.rwlock.writeLock().lock();
-                this.inputStream = HdfsInputStream.createInputStream(status.getPath().toString(), this.config);
-                if (!this.inputStream.isOpened()) {
-                    if (log.isDebugEnabled()) {
-                        log.debug("Skipping file: {} because it doesn't exist anymore", status.getPath());
-                    }
-                    continue;
+            long lastCheckpoint = System.currentTimeMillis();
+            while (inputStream.next(key, value) >= 0) {
+                processExchange(createExchange(inputStream, key, value));
+                numMessages++;
+
+                if (checkpointStore != null && System.currentTimeMillis() - lastCheckpoint >= config.getCheckpointInterval()) {
+                    saveCheckpoint(inputStream);
+                    lastCheckpoint = System.currentTimeMillis();
                 }
-            } finally {
-                this.rwlock.writeLock().unlock();
             }
+        } finally {
+            completeFile(inputStream);
+        }
+
+        return numMessages;
+    }
 
+    /**
+     * Whether the sequence files spanning several blocks are read in parallel ranges.
+     */
+    private boolean isRangeRead() {
+        return config.getRangeParallelism() > 1 && checkpointStore == null && config.getFileType() == HdfsFileType.SEQUENCE_FILE;
+    }
+
+    /**
+     * Claims and opens the file, continuing from its checkpoint if there is one.
+     *
+     * @return the input stream, or <tt>null</tt> if the file has been claimed by another consumer
+     */
+    private HdfsInputStream openFile(FileStatus status) throws IOException {
+        HdfsInputStream inputStream;
+        if (processedFileStore != null) {
+            // the file is left in place, and only claimed within this consumer
+            String path = status.getPath().toString();
+            if (claimedFiles.putIfAbsent(path, processedFileKey(status)) != null) {
+                return null;
+            }
             try {
-                Holder<Object> key = new Holder<>();
-                Holder<Object> value = new Holder<>();
-                while (this.inputStream.next(key, value) >= 0) {
-                    Exchange exchange = this.getEndpoint().createExchange();
-                    Message message = exchange.getIn();
-                    String fileName = StringUtils.substringAfterLast(status.getPath().toString(), "/");
-                    message.setHeader(Exchange.FILE_NAME, fileName);
-                    if (key.value != null) {
-                        message.setHeader(HdfsHeader.KEY.name(), key.value);
-                    }
-                    message.setBody(value.value);
+                inputStream = HdfsInputStream.createInputStream(path, this.config, false);
+            } catch (IOException | RuntimeException e) {
+                claimedFiles.remove(path);
+                throw e;
+            }
+        } else {
+            inputStream = HdfsInputStream.createInputStream(status.getPath().toString(), this.config);
+        }
+        if (!inputStream.isOpened()) {
+            if (log.isDebugEnabled()) {
+                log.debug("Skipping file: {} because it doesn't exist anymore", status.getPath());
+            }
+            return null;
+        }
+
+        inputStream.setReadStatistics(readStatistics);
+        if (checkpointStore != null) {
+            long position = checkpointStore.load(inputStream.getActualPath());
+            if (position > 0) {
+                log.info("Resuming file {} from position {}", inputStream.getActualPath(), position);
+                inputStream.seek(position);
+            } else if (position < 0) {
+                // mark the file as claimed by a consumer, so it is recovered even if the consumer stops before the first checkpoint
+                checkpointStore.save(inputStream.getActualPath(), 0);
+            }
+        }
+        return inputStream;
+    }
+
+    private void saveCheckpoint(HdfsInputStream inputStream) throws IOException {
+        long position = inputStream.getCheckpointPosition();
+        if (position >= 0) {
+            checkpointStore.save(inputStream.getActualPath(), position);
+        }
+    }
 
-                    log.debug("Processing file {}", fileName);
+    private void completeFile(HdfsInputStream inputStream) {
+        IOHelper.close(inputStream, "input stream", log);
+        if (processedFileStore != null) {
+            String key = claimedFiles.remove(inputStream.getActualPath());
+            try {
+                if (key != null) {
+                    processedFileStore.add(key);
+                }
+            } catch (IOException e) {
+                log.warn("Error storing file {} as consumed. This exception is ignored.", inputStream.getActualPath(), e);
+            }
+        }
+        if (checkpointStore != null) {
+            try {
+                checkpointStore.remove(inputStream.getActualPath());
+            } catch (IOException e) {
+                log.warn("Error removing the checkpoint of file {}. This exception is ignored.", inputStream.getActualPath(), e);
+            }
+        }
+    }
+
+    /**
+     * Gives the file back, without marking it as consumed, so it is consumed again from the start.
+     */
+    private void releaseFile(HdfsInputStream inputStream) {
+        try {
+            inputStream.release();
+        } catch (IOException e) {
+            log.warn("Error releasing file {}. This exception is ignored.", inputStream.getActualPath(), e);
+        }
+        claimedFiles.remove(inputStream.getActualPath());
+    }
+
+    /**
+     * The key of the file in the processed file store.
+     */
+    private static String processedFileKey(FileStatus status) {
+        return status.getPath() + ":" + status.getLen() + ":" + status.getModificationTime();
+    }
+
+    /**
+     * Gives back the files left opened by a consumer which did not stop properly, so they are consumed again, from their
+     * checkpoint. This assumes no other consumer is reading from the same path. Only the files which have a checkpoint are
+     * given back, as the other opened files are still being written by a producer.
+     */
+    private void recoverOpenedFiles(HdfsInfo info) throws IOException {
+        String suffix = "." + config.getOpenedSuffix();
+        FileStatus[] opened = info.getFileSystem().globStatus(info.getPath().suffix("/" + config.getPattern() + suffix));
+        for (FileStatus status : Optional.ofNullable(opened).orElse(new FileStatus[0])) {
+            String openedPath = status.getPath().toString();
+            Path path = new Path(openedPath.substring(0, openedPath.length() - suffix.length()));
+            if (checkpointStore.load(path.toString()) < 0) {
+                // not claimed by a consumer, but most likely still written by a producer
+                log.debug("Leaving opened file {} alone, as it has no checkpoint", status.getPath());
+                continue;
+            }
+            log.info("Recovering partially consumed file {}", path);
+            info.getFileSystem().rename(status.getPath(), path);
+        }
+    }
+
+    private Exchange createExchange(HdfsInputStream inputStream, Holder<Object> key, Holder<Object> value) {
+        Exchange exchange = this.getEndpoint().createExchange();
+        Message message = exchange.getIn();
+        String fileName = StringUtils.substringAfterLast(inputStream.getActualPath(), "/");
+        message.setHeader(Exchange.FILE_NAME, fileName);
+        if (key.value != null) {
+            message.setHeader(HdfsHeader.KEY.name(), key.value);
+        }
+        message.setBody(value.value);
+        if (value.value instanceof ByteBuffer && config.getFileType() == HdfsFileType.NORMAL_FILE
+                && (inputStream.getChunkType() == HdfsChunkType.POOLED_BUFFER || inputStream.getChunkType() == HdfsChunkType.ZERO_COPY)) {
+            ByteBuffer buffer = (ByteBuffer) value.value;
+            // the file is only closed once the exchange is done with the chunk, which may be after the file has been read
+            inputStream.retainChunk(buffer);
+            exchange.addOnCompletion(new SynchronizationAdapter() {
+                @Override
+                public void onDone(Exchange exchange) {
                     try {
-                        processor.process(exchange);
-                    } catch (Exception e) {
-                        exchange.setException(e);
+                        inputStream.releaseChunk(buffer);
+                    } catch (IOException | RuntimeException e) {
+                        log.debug("Error releasing chunk of file {}. This exception is ignored.", inputStream.getActualPath(), e);
                     }
+                }
+            });
+        }
+        return exchange;
+    }
 
-                    // in case of unhandled exceptions then let the exception handler handle them
-                    if (exchange.getException() != null) {
-                        getExceptionHandler().handleException(exchange.getException());
-                    }
+    /**
+     * Creates the exchange of a whole file, whose body streams the file. The file is completed when the exchange completes,
+     * or given back to be consumed again when it fails.
+     */
+    private Exchange createStreamExchange(HdfsInputStream inputStream) {
+        Exchange exchange = this.getEndpoint().createExchange();
+        Message message = exchange.getIn();
+        message.setHeader(Exchange.FILE_NAME, StringUtils.substringAfterLast(inputStream.getActualPath(), "/"));
+        message.setBody(inputStream.getIn());
+        exchange.addOnCompletion(new SynchronizationAdapter() {
+            @Override
+            public void onComplete(Exchange exchange) {
+                completeFile(inputStream);
+            }
 
-                    numMessages++;
-                }
-            } finally {
-                IOHelper.close(inputStream, "input stream", log);
+            @Override
+            public void onFailure(Exchange exchange) {
+                releaseFile(inputStream);
             }
+        });
+        return exchange;
+    }
+
+    private void processExchange(Exchange exchange) {
+        log.debug("Processing file {}", exchange.getIn().getHeader(Exchange.FILE_NAME));
+        try {
+            processor.process(exchange);
+        } catch (Exception e) {
+            exchange.setException(e);
         }
 
-        return numMessages;
+        // in case of unhandled exceptions then let the exception handler handle them
+        if (exchange.getException() != null) {
+            getExceptionHandler().handleException(exchange.getException());
+        }
     }
 
     private boolean normalFileIsDirectoryNoSuccessFile(FileStatus status, HdfsInfo info) throws IOException {
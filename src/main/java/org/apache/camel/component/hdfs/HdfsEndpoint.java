@@ -18,6 +18,10 @@ package org.apache.camel.component.hdfs;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.security.auth.login.Configuration;
 
 import org.apache.camel.Consumer;
 import org.apache.camel.Processor;
@@ -34,17 +38,22 @@ public class HdfsEndpoint extends ScheduledPollEndpoint {
 
     @UriParam
     private final HdfsConfiguration config;
+    private final HdfsConnection connection;
+    private volatile ScheduledExecutorService reloginScheduler;
 
     public HdfsEndpoint(String endpointUri, HdfsComponent component) throws URISyntaxException {
         super(endpointUri, component);
         this.config = new HdfsConfiguration();
         this.config.parseURI(new URI(endpointUri));
+        this.connection = new HdfsConnection(config);
+        this.config.setConnection(connection);
     }
 
     @Override
     public Consumer createConsumer(Processor processor) throws Exception {
         config.checkConsumerOptions();
         HdfsConsumer answer = new HdfsConsumer(this, processor, config);
+        answer.setMaxMessagesPerPoll(config.getMaxMessagesPerPoll());
         configureConsumer(answer);
         return answer;
     }
@@ -59,4 +68,44 @@ public class HdfsEndpoint extends ScheduledPollEndpoint {
         return config;
     }
 
+    @Override
+    protected void doStart() throws Exception {
+        super.doStart();
+        if (config.isKerberosAuthentication()) {
+            reloginScheduler = getCamelContext().getExecutorServiceManager().newSingleThreadScheduledExecutor(this, "HdfsKerberosRelogin");
+            log.debug("Creating KerberosRelogin task scheduled to run every {} millis", config.getKerberosReloginInterval());
+            reloginScheduler.scheduleAtFixedRate(new KerberosRelogin(), config.getKerberosReloginInterval(), config.getKerberosReloginInterval(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        super.doStop();
+        if (reloginScheduler != null) {
+            getCamelContext().getExecutorServiceManager().shutdownNow(reloginScheduler);
+            reloginScheduler = null;
+        }
+        // the consumers and producers are stopped by now, so no stream uses the file systems anymore
+        connection.close();
+    }
+
+    private final class KerberosRelogin implements Runnable {
+
+        @Override
+        public void run() {
+            // need to remember auth as Hadoop will override that, which otherwise means the Auth is broken afterwards
+            Configuration auth = config.getJAASConfiguration();
+            try {
+                connection.relogin();
+            } finally {
+                config.setJAASConfiguration(auth);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "KerberosRelogin";
+        }
+    }
+
 }
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.hdfs;
+
+import java.io.IOException;
+import java.net.URI;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+/**
+ * A {@link HdfsCheckpointStore} keeping a small checkpoint file per consumed file in a directory, which can be on the
+ * local file system (file:///) or on HDFS (hdfs://).
+ */
+public class HdfsFileCheckpointStore implements HdfsCheckpointStore {
+
+    private final Path directory;
+    private final FileSystem fileSystem;
+
+    public HdfsFileCheckpointStore(String directory) throws IOException {
+        this(directory, FileSystem.get(URI.create(directory), new Configuration()));
+    }
+
+    /**
+     * Creates the store on the given file system, such as the one of the endpoint, which is set up with its HA, Kerberos
+     * and configuration resources.
+     */
+    public HdfsFileCheckpointStore(String directory, FileSystem fileSystem) {
+        this.directory = new Path(directory);
+        this.fileSystem = fileSystem;
+    }
+
+    @Override
+    public long load(String path) throws IOException {
+        try (FSDataInputStream in = fileSystem.open(checkpointPath(path))) {
+            return in.readLong();
+        } catch (IOException e) {
+            // no checkpoint, or one which has not been completely written
+            return -1;
+        }
+    }
+
+    @Override
+    public void save(String path, long position) throws IOException {
+        try (FSDataOutputStream out = fileSystem.create(checkpointPath(path), true)) {
+            out.writeLong(position);
+        }
+    }
+
+    @Override
+    public void remove(String path) throws IOException {
+        fileSystem.delete(checkpointPath(path), false);
+    }
+
+    private Path checkpointPath(String path) {
+        return new Path(directory, DigestUtils.sha1Hex(path) + ".checkpoint");
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.hdfs;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Optional;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+/**
+ * A {@link HdfsProcessedFileStore} keeping a log of the consumed files in a directory, which can be on the local file
+ * system (file:///) or on HDFS (hdfs://).
+ * <p/>
+ * The log holds a 64 bits fingerprint of each key, and the fingerprints are kept in memory in open addressing hash sets,
+ * which take about 16 bytes per file. The store keeps up to a capacity of fingerprints in two generations, each with its
+ * own log: when the current generation is full, the previous generation and its log are dropped, and a new generation
+ * is started. A file found in the previous generation is carried over to the current one, so only the files which are
+ * no longer listed are forgotten, and the memory and the logs stay bounded. On startup the logs of the two newest
+ * generations are loaded, the current one is compacted into a new log, and the older logs are deleted.
+ */
+public class HdfsFileProcessedFileStore implements HdfsProcessedFileStore, Closeable {
+
+    private static final String LOG_SUFFIX = ".processed";
+
+    private final FileSystem fileSystem;
+    private final Path dir;
+    private final int generationCapacity;
+    private FingerprintSet current = new FingerprintSet();
+    private FingerprintSet previous = new FingerprintSet();
+    private Path currentLog;
+    private Path previousLog;
+    private FSDataOutputStream out;
+    private long lastLogTime;
+
+    public HdfsFileProcessedFileStore(String directory) throws IOException {
+        this(directory, FileSystem.get(URI.create(directory), new Configuration()));
+    }
+
+    /**
+     * Creates the store on the given file system, such as the one of the endpoint, which is set up with its HA, Kerberos
+     * and configuration resources.
+     */
+    public HdfsFileProcessedFileStore(String directory, FileSystem fileSystem) throws IOException {
+        this(directory, fileSystem, HdfsConstants.DEFAULT_PROCESSED_FILE_CAPACITY);
+    }
+
+    /**
+     * Creates the store on the given file system, remembering up to the given number of files.
+     */
+    public HdfsFileProcessedFileStore(String directory, FileSystem fileSystem, int capacity) throws IOException {
+        this.fileSystem = fileSystem;
+        this.dir = new Path(directory);
+        this.generationCapacity = Math.max(1, capacity / 2);
+        fileSystem.mkdirs(dir);
+
+        FileStatus[] logs = fileSystem.listStatus(dir, path -> path.getName().endsWith(LOG_SUFFIX));
+        logs = Optional.ofNullable(logs).orElse(new FileStatus[0]);
+        Arrays.sort(logs, Comparator.comparingLong(HdfsFileProcessedFileStore::logTime));
+        int count = logs.length;
+        if (count > 0) {
+            lastLogTime = logTime(logs[count - 1]);
+            load(logs[count - 1].getPath(), current);
+        }
+        if (count > 1) {
+            previousLog = logs[count - 2].getPath();
+            load(previousLog, previous);
+        }
+
+        currentLog = newLogPath();
+        out = fileSystem.create(currentLog, false);
+        current.writeTo(out);
+        out.hflush();
+        for (int i = 0; i < count; i++) {
+            if (i != count - 2) {
+                fileSystem.delete(logs[i].getPath(), false);
+            }
+        }
+        if (current.size() >= generationCapacity) {
+            roll();
+        }
+    }
+
+    @Override
+    public synchronized boolean contains(String key) throws IOException {
+        long fingerprint = fingerprint(key);
+        if (current.contains(fingerprint)) {
+            return true;
+        }
+        if (previous.contains(fingerprint)) {
+            // carried over, so the files which are still listed are not forgotten when the previous generation is dropped
+            record(fingerprint);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized void add(String key) throws IOException {
+        long fingerprint = fingerprint(key);
+        if (!current.contains(fingerprint)) {
+            record(fingerprint);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * The number of fingerprints kept in memory.
+     */
+    synchronized int size() {
+        return current.size() + previous.size();
+    }
+
+    private void record(long fingerprint) throws IOException {
+        current.add(fingerprint);
+        out.writeLong(fingerprint);
+        out.hflush();
+        if (current.size() >= generationCapacity) {
+            roll();
+        }
+    }
+
+    /**
+     * Drops the previous generation and its log, and starts a new generation.
+     */
+    private void roll() throws IOException {
+        out.close();
+        if (previousLog != null) {
+            fileSystem.delete(previousLog, false);
+        }
+        previous = current;
+        previousLog = currentLog;
+        current = new FingerprintSet();
+        currentLog = newLogPath();
+        out = fileSystem.create(currentLog, false);
+    }
+
+    private Path newLogPath() throws IOException {
+        // the logs are named after their creation time, so the newest logs are found on startup
+        long time = Math.max(System.currentTimeMillis(), lastLogTime + 1);
+        Path logPath = new Path(dir, time + LOG_SUFFIX);
+        while (fileSystem.exists(logPath)) {
+            logPath = new Path(dir, ++time + LOG_SUFFIX);
+        }
+        lastLogTime = time;
+        return logPath;
+    }
+
+    private static long logTime(FileStatus log) {
+        String name = log.getPath().getName();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - LOG_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private void load(Path log, FingerprintSet fingerprints) throws IOException {
+        try (FSDataInputStream in = fileSystem.open(log)) {
+            while (true) {
+                fingerprints.add(in.readLong());
+            }
+        } catch (EOFException e) {
+            // the end of the log, possibly with a fingerprint which has not been completely written
+        }
+    }
+
+    private static long fingerprint(String key) {
+        return ByteBuffer.wrap(DigestUtils.sha1(key)).getLong();
+    }
+
+    /**
+     * A hash set of longs with linear probing, zero marking the free slots.
+     */
+    private static final class FingerprintSet {
+
+        private long[] table = new long[1024];
+        private int size;
+        private boolean containsZero;
+
+        int size() {
+            return containsZero ? size + 1 : size;
+        }
+
+        boolean contains(long value) {
+            if (value == 0) {
+                return containsZero;
+            }
+            for (int i = index(value, table.length); table[i] != 0; i = (i + 1) & (table.length - 1)) {
+                if (table[i] == value) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean add(long value) {
+            if (value == 0) {
+                boolean added = !containsZero;
+                containsZero = true;
+                return added;
+            }
+            if (contains(value)) {
+                return false;
+            }
+            if ((size + 1) * 2 > table.length) {
+                long[] old = table;
+                table = new long[old.length * 2];
+                for (long v : old) {
+                    if (v != 0) {
+                        insert(v);
+                    }
+                }
+            }
+            insert(value);
+            size++;
+            return true;
+        }
+
+        void writeTo(FSDataOutputStream out) throws IOException {
+            if (containsZero) {
+                out.writeLong(0);
+            }
+            for (long value : table) {
+                if (value != 0) {
+                    out.writeLong(value);
+                }
+            }
+        }
+
+        private void insert(long value) {
+            int i = index(value, table.length);
+            while (table[i] != 0) {
+                i = (i + 1) & (table.length - 1);
+            }
+            table[i] = value;
+        }
+
+        private static int index(long value, int length) {
+            // the fingerprints are already uniformly distributed
+            return (int) (value ^ (value >>> 32)) & (length - 1);
+        }
+    }
+}
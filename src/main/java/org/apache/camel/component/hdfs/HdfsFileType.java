@@ -20,10 +20,14 @@ import org.apache.camel.RuntimeCamelException;
 import org.apache.camel.TypeConverter;
 import org.apache.camel.util.IOHelper;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.FileUtil;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.ReadOption;
+import org.apache.hadoop.hdfs.client.HdfsDataInputStream;
 import org.apache.hadoop.io.ArrayFile;
 import org.apache.hadoop.io.BloomMapFile;
 import org.apache.hadoop.io.BooleanWritable;
@@ -31,6 +35,7 @@ import org.apache.hadoop.io.ByteWritable;
 import org.apache.hadoop.io.BytesWritable;
 import org.apache.hadoop.io.DoubleWritable;
 import org.apache.hadoop.io.FloatWritable;
+import org.apache.hadoop.io.IOUtils;
 import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.MapFile;
@@ -51,9 +56,20 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
+import java.io.SequenceInputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 public enum HdfsFileType {
@@ -61,50 +77,195 @@ public enum HdfsFileType {
     NORMAL_FILE {
         @Override
         public long append(HdfsOutputStream hdfsostr, Object key, Object value, TypeConverter typeConverter) {
+            FSDataOutputStream out = (FSDataOutputStream) hdfsostr.getOut();
+            try {
+                // write the bodies already holding the bytes directly, without a stream in between
+                if (value instanceof byte[]) {
+                    byte[] bytes = (byte[]) value;
+                    out.write(bytes);
+                    return bytes.length;
+                } else if (value instanceof ByteBuffer && ((ByteBuffer) value).hasArray()) {
+                    ByteBuffer buffer = (ByteBuffer) value;
+                    out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+                    return buffer.remaining();
+                }
+            } catch (IOException ex) {
+                throw new RuntimeCamelException(ex);
+            }
+
+            byte[] buf = HdfsBufferPool.acquire(hdfsostr.getBufferSize());
             InputStream is = null;
             try {
+                if (value instanceof ByteBuffer) {
+                    return copyBytes(((ByteBuffer) value).duplicate(), out, buf);
+                } else if (value instanceof File) {
+                    try (FileChannel channel = FileChannel.open(((File) value).toPath(), StandardOpenOption.READ)) {
+                        return copyBytes(channel, out, buf);
+                    }
+                } else if (value instanceof ReadableByteChannel) {
+                    return copyBytes((ReadableByteChannel) value, out, buf);
+                }
                 is = typeConverter.convertTo(InputStream.class, value);
-                return copyBytes(is, (FSDataOutputStream) hdfsostr.getOut(), HdfsConstants.DEFAULT_BUFFERSIZE, false);
+                return copyBytes(is, out, buf);
             } catch (IOException ex) {
                 throw new RuntimeCamelException(ex);
             } finally {
                 IOHelper.close(is);
+                HdfsBufferPool.release(buf);
             }
         }
 
+        @Override
+        public long getCheckpointPosition(HdfsInputStream hdfsistr) {
+            return hdfsistr.getResumedPosition() + hdfsistr.getNumOfReadBytes();
+        }
+
+        @Override
+        public void seek(HdfsInputStream hdfsistr, long position) throws IOException {
+            IOUtils.skipFully((InputStream) hdfsistr.getIn(), position);
+        }
+
         @Override
         public long next(HdfsInputStream hdfsInputStream, Holder<Object> key, Holder<Object> value) {
             try {
-                ByteArrayOutputStream bos = new ByteArrayOutputStream(hdfsInputStream.getChunkSize());
-                byte[] buf = new byte[hdfsInputStream.getChunkSize()];
-                int bytesRead = ((InputStream) hdfsInputStream.getIn()).read(buf);
-                if (bytesRead >= 0) {
-                    bos.write(buf, 0, bytesRead);
-                    key.value = null;
-                    value.value = bos;
-                    return bytesRead;
-                } else {
-                    key.value = null;
-                    // indication that we may have read from empty file
+                key.value = null;
+                if (hdfsInputStream.getRecordReader() != null) {
+                    return nextRecords(hdfsInputStream, value);
+                }
+                InputStream in = (InputStream) hdfsInputStream.getIn();
+                int chunkSize = hdfsInputStream.getChunkSize();
+                switch (hdfsInputStream.getChunkType()) {
+                case BYTES:
+                    byte[] bytes = new byte[chunkSize];
+                    int length = readChunk(in, bytes);
+                    // only the last chunk is shorter, and copied to fit
+                    value.value = length == chunkSize ? bytes : Arrays.copyOf(bytes, length);
+                    return length;
+                case POOLED_BUFFER:
+                    byte[] buf = HdfsBufferPool.acquire(chunkSize);
+                    int position = readChunk(in, buf);
+                    // the consumer gives the array back to the pool when the exchange completes
+                    value.value = pooledChunk(buf, position);
+                    return position;
+                case ZERO_COPY:
+                    return nextZeroCopy(hdfsInputStream, value);
+                default:
+                    // read straight into the buffer of the stream, and an empty stream may indicate an empty file
+                    ChunkOutputStream bos = new ChunkOutputStream(chunkSize);
                     value.value = bos;
-                    return 0;
+                    return bos.readFrom(in);
                 }
             } catch (IOException ex) {
                 throw new RuntimeCamelException(ex);
             }
         }
 
+        /**
+         * Reads the next chunk with the enhanced byte buffer access, which HDFS serves by mapping the block of a
+         * short-circuit local replica in memory when possible, and by copying into a pooled buffer otherwise.
+         */
+        private long nextZeroCopy(HdfsInputStream hdfsInputStream, Holder<Object> value) throws IOException {
+            InputStream in = (InputStream) hdfsInputStream.getIn();
+            int chunkSize = hdfsInputStream.getChunkSize();
+            if (!(in instanceof FSDataInputStream)) {
+                // a directory of part files, or a local temporary copy
+                byte[] buf = HdfsBufferPool.acquire(chunkSize);
+                int length = readChunk(in, buf);
+                value.value = pooledChunk(buf, length);
+                hdfsInputStream.getReadStatistics().copy(length);
+                return length;
+            }
+
+            FSDataInputStream fin = (FSDataInputStream) in;
+            EnumSet<ReadOption> options = hdfsInputStream.getConfig().isSkipChecksums() ? EnumSet.of(ReadOption.SKIP_CHECKSUMS) : EnumSet.noneOf(ReadOption.class);
+            long zeroCopyBytes = getZeroCopyBytesRead(fin);
+            ByteBuffer buffer = fin.read(HdfsBufferPool.BYTE_BUFFERS, chunkSize, options);
+            if (buffer == null) {
+                // an empty buffer may indicate an empty file
+                value.value = HdfsBufferPool.EMPTY_CHUNK;
+                return 0;
+            }
+            int length = buffer.remaining();
+            if (getZeroCopyBytesRead(fin) > zeroCopyBytes) {
+                hdfsInputStream.getReadStatistics().zeroCopy(length);
+            } else {
+                hdfsInputStream.getReadStatistics().copy(length);
+            }
+            value.value = buffer;
+            return length;
+        }
+
+        private long getZeroCopyBytesRead(FSDataInputStream in) {
+            // only HDFS reports the bytes read with zero-copy, other file systems always copy
+            return in instanceof HdfsDataInputStream ? ((HdfsDataInputStream) in).getReadStatistics().getTotalZeroCopyBytesRead() : 0;
+        }
+
+        /**
+         * Reads the next record, or the list of the next records when there are several records per message.
+         */
+        private long nextRecords(HdfsInputStream hdfsInputStream, Holder<Object> value) throws IOException {
+            HdfsRecordReader reader = hdfsInputStream.getRecordReader();
+            if (hdfsInputStream.getRecordsPerMessage() <= 1) {
+                long numBytes = reader.next(value);
+                if (numBytes < 0) {
+                    value.value = null;
+                    return 0;
+                }
+                return numBytes;
+            }
+
+            List<Object> records = new ArrayList<>(hdfsInputStream.getRecordsPerMessage());
+            Holder<Object> record = new Holder<>();
+            long total = 0;
+            while (records.size() < hdfsInputStream.getRecordsPerMessage()) {
+                long numBytes = reader.next(record);
+                if (numBytes < 0) {
+                    break;
+                }
+                records.add(record.value);
+                total += numBytes;
+            }
+            value.value = records.isEmpty() ? null : records;
+            return total;
+        }
+
+        /**
+         * Wraps the read bytes of a pooled array, or gives the array back at the end of the file, where the chunk is
+         * empty, as the consumer does not release empty chunks.
+         */
+        private ByteBuffer pooledChunk(byte[] buf, int length) {
+            if (length == 0) {
+                HdfsBufferPool.release(buf);
+                return HdfsBufferPool.EMPTY_CHUNK;
+            }
+            return ByteBuffer.wrap(buf, 0, length);
+        }
+
+        /**
+         * Reads until the buffer is full or the end of the stream is reached.
+         */
+        private int readChunk(InputStream in, byte[] buf) throws IOException {
+            int total = 0;
+            while (total < buf.length) {
+                int bytesRead = in.read(buf, total, buf.length - total);
+                if (bytesRead < 0) {
+                    break;
+                }
+                total += bytesRead;
+            }
+            return total;
+        }
+
         @Override
-        public Closeable createOutputStream(String hdfsPath, HdfsConfiguration configuration) {
+        public Closeable createOutputStream(String hdfsPath, HdfsInfo hdfsInfo, HdfsConfiguration configuration) {
             try {
                 Closeable rout;
-                HdfsInfo hdfsInfo = HdfsInfoFactory.newHdfsInfo(hdfsPath, configuration);
                 if (!configuration.isAppend()) {
-                    rout = hdfsInfo.getFileSystem().create(hdfsInfo.getPath(), configuration.isOverwrite(), configuration.getBufferSize(),
+                    rout = hdfsInfo.getFileSystem().create(new Path(hdfsPath), configuration.isOverwrite(), configuration.getBufferSize(),
                             configuration.getReplication(), configuration.getBlockSize(), () -> {
                             });
                 } else {
-                    rout = hdfsInfo.getFileSystem().append(hdfsInfo.getPath(), configuration.getBufferSize(), () -> {
+                    rout = hdfsInfo.getFileSystem().append(new Path(hdfsPath), configuration.getBufferSize(), () -> {
                     });
                 }
                 return rout;
@@ -117,9 +278,10 @@ public enum HdfsFileType {
         public Closeable createInputStream(String hdfsPath, HdfsConfiguration configuration) {
             try {
                 Closeable rin;
-                if (configuration.getFileSystemType().equals(HdfsFileSystemType.LOCAL)) {
+                if (configuration.getFileSystemType().equals(HdfsFileSystemType.LOCAL) || configuration.isStreamingRead()
+                        || configuration.isStreamDownload() || configuration.getChunkType() == HdfsChunkType.ZERO_COPY) {
                     HdfsInfo hdfsInfo = HdfsInfoFactory.newHdfsInfo(hdfsPath, configuration);
-                    rin = hdfsInfo.getFileSystem().open(hdfsInfo.getPath());
+                    rin = openStreaming(hdfsInfo.getFileSystem(), hdfsInfo.getPath(), configuration);
                 } else {
                     rin = new FileInputStream(getHfdsFileToTmpFile(hdfsPath, configuration));
                 }
@@ -129,6 +291,48 @@ public enum HdfsFileType {
             }
         }
 
+        /**
+         * Opens the file for reading straight from the file system. A directory is read as the concatenation of its
+         * files in name order, skipping the hidden files such as _SUCCESS, and each file is only opened when reached.
+         */
+        private InputStream openStreaming(FileSystem fileSystem, Path path, HdfsConfiguration configuration) throws IOException {
+            FileStatus status = fileSystem.getFileStatus(path);
+            if (!status.isDirectory()) {
+                return open(fileSystem, path, configuration);
+            }
+
+            FileStatus[] parts = fileSystem.listStatus(path, part -> !part.getName().startsWith("_") && !part.getName().startsWith("."));
+            Arrays.sort(parts, Comparator.comparing(part -> part.getPath().getName()));
+            Iterator<FileStatus> it = Arrays.stream(parts).filter(FileStatus::isFile).iterator();
+            return new SequenceInputStream(new Enumeration<InputStream>() {
+                @Override
+                public boolean hasMoreElements() {
+                    return it.hasNext();
+                }
+
+                @Override
+                public InputStream nextElement() {
+                    try {
+                        return open(fileSystem, it.next().getPath(), configuration);
+                    } catch (IOException ex) {
+                        throw new RuntimeCamelException(ex);
+                    }
+                }
+            });
+        }
+
+        private InputStream open(FileSystem fileSystem, Path path, HdfsConfiguration configuration) throws IOException {
+            FSDataInputStream in = fileSystem.open(path, configuration.getBufferSize());
+            if (configuration.getReadAhead() > 0) {
+                try {
+                    in.setReadahead(configuration.getReadAhead());
+                } catch (UnsupportedOperationException e) {
+                    // the file system does not support read-ahead
+                }
+            }
+            return in;
+        }
+
         private File getHfdsFileToTmpFile(String hdfsPath, HdfsConfiguration configuration) {
             try {
                 String fname = hdfsPath.substring(hdfsPath.lastIndexOf('/'));
@@ -158,7 +362,7 @@ public enum HdfsFileType {
                     FileUtil.copyMerge(
                             fileSystem, // src
                             new Path(hdfsPath),
-                            FileSystem.getLocal(new Configuration()), // dest
+                            FileSystem.getLocal(hdfsInfo.getConf()), // dest
                             new Path(outputDest.toURI()),
                             false, fileSystem.getConf(), null);
                 } catch (IOException e) {
@@ -182,25 +386,41 @@ public enum HdfsFileType {
                 Writable valueWritable = getWritable(value, typeConverter, valueSize);
                 Writer writer = (SequenceFile.Writer) hdfsostr.getOut();
                 writer.append(keyWritable, valueWritable);
-                writer.sync();
                 return keySize.value + valueSize.value;
             } catch (Exception ex) {
                 throw new RuntimeCamelException(ex);
             }
         }
 
+        @Override
+        public void sync(HdfsOutputStream hdfsostr) throws IOException {
+            ((SequenceFile.Writer) hdfsostr.getOut()).sync();
+        }
+
+        @Override
+        public long getCheckpointPosition(HdfsInputStream hdfsistr) {
+            return hdfsistr.getLastSyncPosition();
+        }
+
+        @Override
+        public void seek(HdfsInputStream hdfsistr, long position) throws IOException {
+            ((SequenceFile.Reader) hdfsistr.getIn()).sync(position);
+        }
+
         @Override
         public long next(HdfsInputStream hdfsistr, Holder<Object> key, Holder<Object> value) {
             try {
                 SequenceFile.Reader reader = (SequenceFile.Reader) hdfsistr.getIn();
-                Holder<Integer> keySize = new Holder<>();
-                Writable keyWritable = (Writable) ReflectionUtils.newInstance(reader.getKeyClass(), new Configuration());
-                Holder<Integer> valueSize = new Holder<>();
-                Writable valueWritable = (Writable) ReflectionUtils.newInstance(reader.getValueClass(), new Configuration());
-                if (reader.next(keyWritable, valueWritable)) {
-                    key.value = getObject(keyWritable, keySize);
-                    value.value = getObject(valueWritable, valueSize);
-                    return keySize.value + valueSize.value;
+                RecordContext context = getRecordContext(hdfsistr, reader.getKeyClass(), reader.getValueClass());
+                long position = reader.getPosition();
+                if (reader.next(context.key, context.value)) {
+                    if (reader.syncSeen()) {
+                        // the record follows the sync point at the position, which is where a resume can start from
+                        hdfsistr.setLastSyncPosition(position);
+                    }
+                    key.value = context.readKey();
+                    value.value = context.readValue();
+                    return context.size();
                 } else {
                     return 0;
                 }
@@ -210,13 +430,12 @@ public enum HdfsFileType {
         }
 
         @Override
-        public Closeable createOutputStream(String hdfsPath, HdfsConfiguration configuration) {
+        public Closeable createOutputStream(String hdfsPath, HdfsInfo hdfsInfo, HdfsConfiguration configuration) {
             try {
                 Closeable rout;
-                HdfsInfo hdfsInfo = HdfsInfoFactory.newHdfsInfo(hdfsPath, configuration);
                 Class<?> keyWritableClass = configuration.getKeyType().getWritableClass();
                 Class<?> valueWritableClass = configuration.getValueType().getWritableClass();
-                rout = SequenceFile.createWriter(hdfsInfo.getConf(), Writer.file(hdfsInfo.getPath()), Writer.keyClass(keyWritableClass),
+                rout = SequenceFile.createWriter(hdfsInfo.getConf(), Writer.file(new Path(hdfsPath)), Writer.keyClass(keyWritableClass),
                         Writer.valueClass(valueWritableClass), Writer.bufferSize(configuration.getBufferSize()),
                         Writer.replication(configuration.getReplication()), Writer.blockSize(configuration.getBlockSize()),
                         Writer.compression(configuration.getCompressionType(), configuration.getCompressionCodec().getCodec()),
@@ -260,14 +479,11 @@ public enum HdfsFileType {
         public long next(HdfsInputStream hdfsInputStream, Holder<Object> key, Holder<Object> value) {
             try {
                 MapFile.Reader reader = (MapFile.Reader) hdfsInputStream.getIn();
-                Holder<Integer> keySize = new Holder<>();
-                WritableComparable<?> keyWritable = (WritableComparable<?>) ReflectionUtils.newInstance(reader.getKeyClass(), new Configuration());
-                Holder<Integer> valueSize = new Holder<>();
-                Writable valueWritable = (Writable) ReflectionUtils.newInstance(reader.getValueClass(), new Configuration());
-                if (reader.next(keyWritable, valueWritable)) {
-                    key.value = getObject(keyWritable, keySize);
-                    value.value = getObject(valueWritable, valueSize);
-                    return keySize.value + valueSize.value;
+                RecordContext context = getRecordContext(hdfsInputStream, reader.getKeyClass(), reader.getValueClass());
+                if (reader.next((WritableComparable<?>) context.key, context.value)) {
+                    key.value = context.readKey();
+                    value.value = context.readValue();
+                    return context.size();
                 } else {
                     return 0;
                 }
@@ -278,10 +494,9 @@ public enum HdfsFileType {
 
         @Override
         @SuppressWarnings("rawtypes")
-        public Closeable createOutputStream(String hdfsPath, HdfsConfiguration configuration) {
+        public Closeable createOutputStream(String hdfsPath, HdfsInfo hdfsInfo, HdfsConfiguration configuration) {
             try {
                 Closeable rout;
-                HdfsInfo hdfsInfo = HdfsInfoFactory.newHdfsInfo(hdfsPath, configuration);
                 Class<? extends WritableComparable> keyWritableClass = configuration.getKeyType().getWritableClass();
                 Class<? extends WritableComparable> valueWritableClass = configuration.getValueType().getWritableClass();
                 rout = new MapFile.Writer(hdfsInfo.getConf(), new Path(hdfsPath), MapFile.Writer.keyClass(keyWritableClass), MapFile.Writer.valueClass(valueWritableClass),
@@ -326,14 +541,11 @@ public enum HdfsFileType {
         public long next(HdfsInputStream hdfsistr, Holder<Object> key, Holder<Object> value) {
             try {
                 MapFile.Reader reader = (BloomMapFile.Reader) hdfsistr.getIn();
-                Holder<Integer> keySize = new Holder<>();
-                WritableComparable<?> keyWritable = (WritableComparable<?>) ReflectionUtils.newInstance(reader.getKeyClass(), new Configuration());
-                Holder<Integer> valueSize = new Holder<>();
-                Writable valueWritable = (Writable) ReflectionUtils.newInstance(reader.getValueClass(), new Configuration());
-                if (reader.next(keyWritable, valueWritable)) {
-                    key.value = getObject(keyWritable, keySize);
-                    value.value = getObject(valueWritable, valueSize);
-                    return keySize.value + valueSize.value;
+                RecordContext context = getRecordContext(hdfsistr, reader.getKeyClass(), reader.getValueClass());
+                if (reader.next((WritableComparable<?>) context.key, context.value)) {
+                    key.value = context.readKey();
+                    value.value = context.readValue();
+                    return context.size();
                 } else {
                     return 0;
                 }
@@ -344,10 +556,9 @@ public enum HdfsFileType {
 
         @SuppressWarnings("rawtypes")
         @Override
-        public Closeable createOutputStream(String hdfsPath, HdfsConfiguration configuration) {
+        public Closeable createOutputStream(String hdfsPath, HdfsInfo hdfsInfo, HdfsConfiguration configuration) {
             try {
                 Closeable rout;
-                HdfsInfo hdfsInfo = HdfsInfoFactory.newHdfsInfo(hdfsPath, configuration);
                 Class<? extends WritableComparable> keyWritableClass = configuration.getKeyType().getWritableClass();
                 Class<? extends WritableComparable> valueWritableClass = configuration.getValueType().getWritableClass();
                 rout = new BloomMapFile.Writer(hdfsInfo.getConf(), new Path(hdfsPath), org.apache.hadoop.io.MapFile.Writer.keyClass(keyWritableClass),
@@ -391,11 +602,10 @@ public enum HdfsFileType {
         public long next(HdfsInputStream hdfsistr, Holder<Object> key, Holder<Object> value) {
             try {
                 ArrayFile.Reader reader = (ArrayFile.Reader) hdfsistr.getIn();
-                Holder<Integer> valueSize = new Holder<>();
-                Writable valueWritable = (Writable) ReflectionUtils.newInstance(reader.getValueClass(), new Configuration());
-                if (reader.next(valueWritable) != null) {
-                    value.value = getObject(valueWritable, valueSize);
-                    return valueSize.value;
+                RecordContext context = getRecordContext(hdfsistr, null, reader.getValueClass());
+                if (reader.next(context.value) != null) {
+                    value.value = context.readValue();
+                    return context.valueSize.value;
                 } else {
                     return 0;
                 }
@@ -406,10 +616,9 @@ public enum HdfsFileType {
 
         @SuppressWarnings("rawtypes")
         @Override
-        public Closeable createOutputStream(String hdfsPath, HdfsConfiguration configuration) {
+        public Closeable createOutputStream(String hdfsPath, HdfsInfo hdfsInfo, HdfsConfiguration configuration) {
             try {
                 Closeable rout;
-                HdfsInfo hdfsInfo = HdfsInfoFactory.newHdfsInfo(hdfsPath, configuration);
                 Class<? extends WritableComparable> valueWritableClass = configuration.getValueType().getWritableClass();
                 rout = new ArrayFile.Writer(hdfsInfo.getConf(), hdfsInfo.getFileSystem(), hdfsPath, valueWritableClass,
                         configuration.getCompressionType(), () -> {
@@ -433,6 +642,22 @@ public enum HdfsFileType {
         }
     };
 
+    /**
+     * A stream whose buffer is filled by a single read, so the chunk is not copied from a separate read buffer.
+     */
+    private static final class ChunkOutputStream extends ByteArrayOutputStream {
+
+        ChunkOutputStream(int size) {
+            super(size);
+        }
+
+        int readFrom(InputStream in) throws IOException {
+            int bytesRead = in.read(buf, 0, buf.length);
+            count = Math.max(bytesRead, 0);
+            return count;
+        }
+    }
+
     @SuppressWarnings({"rawtypes"})
     private static final class WritableCache {
 
@@ -476,23 +701,140 @@ public enum HdfsFileType {
         return objWritableFactory.create(obj, typeConverter, size);
     }
 
-    private static Object getObject(Writable writable, Holder<Integer> size) {
+    static Object getObject(Writable writable, Holder<Integer> size) {
+        return getReadableFactory(writable).read(writable, size);
+    }
+
+    /**
+     * Converts the object to the given writable class, so for example a lookup key given as a String can be
+     * compared with the LongWritable keys of a map file.
+     */
+    static Writable getWritable(Object obj, Class<?> writableClass, TypeConverter typeConverter) {
+        HdfsWritableFactories.HdfsWritableFactory factory = WritableCache.readables.get(writableClass);
+        if (factory == null) {
+            return getWritable(obj, typeConverter, new Holder<>());
+        }
+        return factory.create(obj, typeConverter, new Holder<>());
+    }
+
+    private static HdfsWritableFactories.HdfsWritableFactory getReadableFactory(Writable writable) {
         Class<?> writableClass = NullWritable.class;
         if (writable != null) {
             writableClass = writable.getClass();
         }
-        HdfsWritableFactories.HdfsWritableFactory writableObjectFactory = WritableCache.readables.get(writableClass);
-        return writableObjectFactory.read(writable, size);
+        return WritableCache.readables.get(writableClass);
+    }
+
+    /**
+     * The record context of the opened file, created on the first record.
+     */
+    private static RecordContext getRecordContext(HdfsInputStream hdfsistr, Class<?> keyClass, Class<?> valueClass) {
+        RecordContext context = hdfsistr.getRecordContext();
+        if (context == null) {
+            context = new RecordContext(keyClass, valueClass, new Configuration());
+            hdfsistr.setRecordContext(context);
+        }
+        return context;
+    }
+
+    /**
+     * The writables the records of an opened file are read into, and the factories reading the objects out of them,
+     * resolved once for the file and reused for every record. This is safe as the factories always return new objects.
+     */
+    static final class RecordContext {
+
+        final Writable key;
+        final Writable value;
+        final Holder<Integer> keySize = new Holder<>(0);
+        final Holder<Integer> valueSize = new Holder<>(0);
+        private final HdfsWritableFactories.HdfsWritableFactory keyFactory;
+        private final HdfsWritableFactories.HdfsWritableFactory valueFactory;
+
+        RecordContext(Class<?> keyClass, Class<?> valueClass, Configuration conf) {
+            this.key = keyClass != null ? (Writable) ReflectionUtils.newInstance(keyClass, conf) : null;
+            this.value = (Writable) ReflectionUtils.newInstance(valueClass, conf);
+            this.keyFactory = getReadableFactory(key);
+            this.valueFactory = getReadableFactory(value);
+        }
+
+        Object readKey() {
+            return keyFactory.read(key, keySize);
+        }
+
+        Object readValue() {
+            return valueFactory.read(value, valueSize);
+        }
+
+        /**
+         * The size of the record read last.
+         */
+        long size() {
+            return keySize.value + valueSize.value;
+        }
     }
 
     public abstract long append(HdfsOutputStream hdfsostr, Object key, Object value, TypeConverter typeConverter);
 
     public abstract long next(HdfsInputStream hdfsInputStream, Holder<Object> key, Holder<Object> value);
 
-    public abstract Closeable createOutputStream(String hdfsPath, HdfsConfiguration configuration);
+    /**
+     * Writes a sync point to the output stream, for the file types which support it.
+     */
+    public void sync(HdfsOutputStream hdfsostr) throws IOException {
+    }
+
+    /**
+     * The position to resume reading from after the records read so far, or -1 for the file types which can not be resumed.
+     */
+    public long getCheckpointPosition(HdfsInputStream hdfsistr) {
+        return -1;
+    }
+
+    /**
+     * Positions the input stream at a position returned by {@link #getCheckpointPosition(HdfsInputStream)}.
+     */
+    public void seek(HdfsInputStream hdfsistr, long position) throws IOException {
+        throw new UnsupportedOperationException("Resuming is not supported by " + this);
+    }
+
+    public abstract Closeable createOutputStream(String hdfsPath, HdfsInfo hdfsInfo, HdfsConfiguration configuration);
 
     public abstract Closeable createInputStream(String hdfsPath, HdfsConfiguration configuration);
 
+    private static long copyBytes(InputStream in, OutputStream out, byte[] buf) throws IOException {
+        long numBytes = 0;
+        int bytesRead = in.read(buf);
+        while (bytesRead >= 0) {
+            out.write(buf, 0, bytesRead);
+            numBytes += bytesRead;
+            bytesRead = in.read(buf);
+        }
+        return numBytes;
+    }
+
+    private static long copyBytes(ReadableByteChannel in, OutputStream out, byte[] buf) throws IOException {
+        long numBytes = 0;
+        ByteBuffer buffer = ByteBuffer.wrap(buf);
+        int bytesRead = in.read(buffer);
+        while (bytesRead >= 0) {
+            out.write(buf, 0, buffer.position());
+            numBytes += buffer.position();
+            buffer.clear();
+            bytesRead = in.read(buffer);
+        }
+        return numBytes;
+    }
+
+    private static long copyBytes(ByteBuffer in, OutputStream out, byte[] buf) throws IOException {
+        long numBytes = in.remaining();
+        while (in.hasRemaining()) {
+            int length = Math.min(buf.length, in.remaining());
+            in.get(buf, 0, length);
+            out.write(buf, 0, length);
+        }
+        return numBytes;
+    }
+
     public static long copyBytes(InputStream in, OutputStream out, int buffSize, boolean close) throws IOException {
         long numBytes = 0;
         PrintStream ps = out instanceof PrintStream ? (PrintStream) out : null;
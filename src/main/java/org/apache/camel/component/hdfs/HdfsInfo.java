@@ -16,15 +16,12 @@
  */
 package org.apache.camel.component.hdfs;
 
-import org.apache.camel.component.hdfs.kerberos.HdfsKerberosConfigurationFactory;
-import org.apache.camel.component.hdfs.kerberos.KerberosConfiguration;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 
 import java.io.IOException;
 import java.net.URI;
-import java.util.List;
 
 public final class HdfsInfo {
 
@@ -33,8 +30,14 @@ public final class HdfsInfo {
     private Path path;
 
     HdfsInfo(String hdfsPath, HdfsConfiguration endpointConfig) throws IOException {
-        this.configuration = newConfiguration(endpointConfig);
-        this.fileSystem = newFileSystem(this.configuration, hdfsPath, endpointConfig);
+        HdfsConnection connection = endpointConfig.getConnection();
+        if (connection != null) {
+            this.configuration = connection.getConf();
+            this.fileSystem = connection.getFileSystem(hdfsPath);
+        } else {
+            this.configuration = HdfsConnection.newConfiguration(endpointConfig);
+            this.fileSystem = newFileSystem(this.configuration, hdfsPath, endpointConfig);
+        }
         this.path = new Path(hdfsPath);
     }
 
@@ -50,29 +53,12 @@ public final class HdfsInfo {
         return path;
     }
 
-    private Configuration newConfiguration(HdfsConfiguration endpointConfig) throws IOException {
-        if (endpointConfig.isKerberosAuthentication()) {
-            List<String> namedNodes = endpointConfig.getKerberosNamedNodeList();
-            String kerberosConfigFileLocation = endpointConfig.getKerberosConfigFileLocation();
-            return new KerberosConfiguration(namedNodes, kerberosConfigFileLocation, endpointConfig.getReplication());
-
-        } else {
-            return new Configuration();
-
-        }
-    }
-
     /**
      * this will connect to the hadoop hdfs file system, and in case of no connection
      * then the hardcoded timeout in hadoop is 45 x 20 sec = 15 minutes
      */
     private FileSystem newFileSystem(Configuration configuration, String hdfsPath, HdfsConfiguration endpointConfig) throws IOException {
-        if (endpointConfig.isKerberosAuthentication()) {
-            String userName = endpointConfig.getKerberosUsername();
-            String keytabLocation = endpointConfig.getKerberosKeytabLocation();
-            ((KerberosConfiguration)configuration).loginWithKeytab(userName, keytabLocation);
-        }
-
+        HdfsConnection.login(configuration, endpointConfig);
         return FileSystem.get(URI.create(hdfsPath), configuration);
     }
 
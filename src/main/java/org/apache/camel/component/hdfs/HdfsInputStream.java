@@ -18,8 +18,11 @@ package org.apache.camel.component.hdfs;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.IOUtils;
 
@@ -31,9 +34,22 @@ public class HdfsInputStream implements Closeable {
     private String suffixedReadPath;
     private Closeable in;
     private boolean opened;
+    private boolean renamed;
     private int chunkSize;
+    private HdfsChunkType chunkType;
+    private HdfsRecordReader recordReader;
+    private int recordsPerMessage;
+    private HdfsReadStatistics readStatistics = new HdfsReadStatistics();
+    private HdfsFileType.RecordContext recordContext;
+    private Holder<Object> prefetchedKey;
+    private Holder<Object> prefetchedValue;
+    private long prefetchedBytes;
     private final AtomicLong numOfReadBytes = new AtomicLong(0L);
     private final AtomicLong numOfReadMessages = new AtomicLong(0L);
+    private long resumedPosition;
+    private long lastSyncPosition;
+    private int retainedChunks;
+    private String pendingRenamePath;
 
     private HdfsConfiguration config;
 
@@ -41,16 +57,32 @@ public class HdfsInputStream implements Closeable {
     }
 
     public static HdfsInputStream createInputStream(String hdfsPath, HdfsConfiguration configuration) throws IOException {
+        return createInputStream(hdfsPath, configuration, true);
+    }
+
+    /**
+     * Opens the file for reading.
+     *
+     * @param rename whether to claim the file by renaming it with the opened suffix, and then with the read suffix once
+     *               consumed. Otherwise the file is left untouched, and the caller keeps track of the consumed files.
+     */
+    public static HdfsInputStream createInputStream(String hdfsPath, HdfsConfiguration configuration, boolean rename) throws IOException {
         HdfsInputStream ret = new HdfsInputStream();
         ret.fileType = configuration.getFileType();
         ret.actualPath = hdfsPath;
-        ret.suffixedPath = ret.actualPath + '.' + configuration.getOpenedSuffix();
+        ret.renamed = rename;
+        ret.suffixedPath = rename ? ret.actualPath + '.' + configuration.getOpenedSuffix() : ret.actualPath;
         ret.suffixedReadPath = ret.actualPath + '.' + configuration.getReadSuffix();
         ret.chunkSize = configuration.getChunkSize();
+        ret.chunkType = configuration.getChunkType();
         HdfsInfo info = HdfsInfoFactory.newHdfsInfo(ret.actualPath, configuration);
-        if (info.getFileSystem().rename(new Path(ret.actualPath), new Path(ret.suffixedPath))) {
+        if (!rename || info.getFileSystem().rename(new Path(ret.actualPath), new Path(ret.suffixedPath))) {
             ret.in = ret.fileType.createInputStream(ret.suffixedPath, configuration);
             ret.opened = true;
+            if (ret.fileType == HdfsFileType.NORMAL_FILE && configuration.getRecordType() != HdfsRecordType.CHUNK) {
+                ret.recordReader = new HdfsRecordReader((InputStream) ret.in, ret.actualPath, configuration);
+                ret.recordsPerMessage = configuration.getRecordsPerMessage();
+            }
         } else {
             ret.opened = false;
         }
@@ -58,12 +90,34 @@ public class HdfsInputStream implements Closeable {
         return ret;
     }
 
+    /**
+     * Closes the stream and marks the file as read. While ZERO_COPY chunks of the file are retained, this is deferred until
+     * the last of them is released, as they may point into the blocks mapped by the stream.
+     */
     @Override
-    public final void close() throws IOException {
+    public final synchronized void close() throws IOException {
+        closeAndRename(suffixedReadPath);
+    }
+
+    /**
+     * Closes the stream and gives the file back, without marking it as read, so it is consumed again from the start. Like
+     * {@link #close()}, this is deferred while ZERO_COPY chunks of the file are retained.
+     */
+    public final synchronized void release() throws IOException {
+        closeAndRename(actualPath);
+    }
+
+    private void closeAndRename(String renamePath) throws IOException {
+        if (retainedChunks > 0) {
+            pendingRenamePath = renamePath;
+            return;
+        }
         if (opened) {
             IOUtils.closeStream(in);
-            HdfsInfo info = HdfsInfoFactory.newHdfsInfo(actualPath, config);
-            info.getFileSystem().rename(new Path(suffixedPath), new Path(suffixedReadPath));
+            if (renamed) {
+                HdfsInfo info = HdfsInfoFactory.newHdfsInfo(actualPath, config);
+                info.getFileSystem().rename(new Path(suffixedPath), new Path(renamePath));
+            }
             opened = false;
         }
     }
@@ -75,10 +129,17 @@ public class HdfsInputStream implements Closeable {
      * @return number of bytes read. 0 is correct number of bytes (empty file), -1 indicates no record was read
      */
     public final long next(Holder<Object> key, Holder<Object> value) {
+        if (prefetchedValue != null) {
+            key.value = prefetchedKey.value;
+            value.value = prefetchedValue.value;
+            prefetchedKey = null;
+            prefetchedValue = null;
+            return prefetchedBytes;
+        }
         long nb = fileType.next(this, key, value);
         // when zero bytes was read from given type of file, we may still have a record (e.g., empty file)
         // null value.value is the only indication that no (new) record/chunk was read
-        if (nb == 0 && numOfReadMessages.get() > 0) {
+        if (nb == 0 && (numOfReadMessages.get() > 0 || resumedPosition > 0)) {
             // we've read all chunks from file, which size is exact multiple the chunk size
             return -1;
         }
@@ -90,6 +151,47 @@ public class HdfsInputStream implements Closeable {
         return -1;
     }
 
+    /**
+     * Reads the first record ahead, so the latency of the first read from the file system is not paid by the caller of
+     * {@link #next(Holder, Holder)}, which returns this record first.
+     */
+    public final void prefetch() {
+        Holder<Object> key = new Holder<>();
+        Holder<Object> value = new Holder<>();
+        prefetchedBytes = next(key, value);
+        prefetchedKey = key;
+        prefetchedValue = value;
+    }
+
+    /**
+     * The position to resume reading from after the records read so far, or -1 if the file type can not be resumed.
+     */
+    public final long getCheckpointPosition() {
+        return fileType.getCheckpointPosition(this);
+    }
+
+    /**
+     * Positions the stream at a position returned by {@link #getCheckpointPosition()}, to continue a file which has been
+     * partially consumed.
+     */
+    public final void seek(long position) throws IOException {
+        fileType.seek(this, position);
+        resumedPosition = position;
+        lastSyncPosition = position;
+    }
+
+    final long getResumedPosition() {
+        return resumedPosition;
+    }
+
+    final long getLastSyncPosition() {
+        return lastSyncPosition;
+    }
+
+    final void setLastSyncPosition(long lastSyncPosition) {
+        this.lastSyncPosition = lastSyncPosition;
+    }
+
     public final long getNumOfReadBytes() {
         return numOfReadBytes.longValue();
     }
@@ -102,10 +204,85 @@ public class HdfsInputStream implements Closeable {
         return actualPath;
     }
 
+    /**
+     * The path of the file while it is being read, with the opened suffix when the file has been renamed.
+     */
+    public final String getOpenedPath() {
+        return suffixedPath;
+    }
+
     public final int getChunkSize() {
         return chunkSize;
     }
 
+    public final HdfsChunkType getChunkType() {
+        return chunkType;
+    }
+
+    /**
+     * The reader of the records of a normal file, or <tt>null</tt> when the file is read in chunks.
+     */
+    final HdfsRecordReader getRecordReader() {
+        return recordReader;
+    }
+
+    final int getRecordsPerMessage() {
+        return recordsPerMessage;
+    }
+
+    final HdfsFileType.RecordContext getRecordContext() {
+        return recordContext;
+    }
+
+    final void setRecordContext(HdfsFileType.RecordContext recordContext) {
+        this.recordContext = recordContext;
+    }
+
+    final HdfsConfiguration getConfig() {
+        return config;
+    }
+
+    final HdfsReadStatistics getReadStatistics() {
+        return readStatistics;
+    }
+
+    /**
+     * Sets the statistics the ZERO_COPY chunks are counted in.
+     */
+    public final void setReadStatistics(HdfsReadStatistics readStatistics) {
+        this.readStatistics = readStatistics;
+    }
+
+    /**
+     * Keeps the stream open until the given chunk is released, when it is a ZERO_COPY chunk. Its exchange may complete after
+     * the file has been read, on another thread, and the buffer has to be given back to the stream it was read from.
+     */
+    public final synchronized void retainChunk(ByteBuffer buffer) {
+        if (chunkType == HdfsChunkType.ZERO_COPY) {
+            retainedChunks++;
+        }
+    }
+
+    /**
+     * Gives back the buffer of a POOLED_BUFFER or ZERO_COPY chunk, once its exchange has completed. When this is the last
+     * retained chunk of a file which has been closed or released meanwhile, the stream is closed and the file renamed now.
+     */
+    public final synchronized void releaseChunk(ByteBuffer buffer) throws IOException {
+        // the empty chunk at the end of the file is not pooled
+        if (buffer.capacity() > 0) {
+            if (chunkType == HdfsChunkType.ZERO_COPY && in instanceof FSDataInputStream) {
+                ((FSDataInputStream) in).releaseBuffer(buffer);
+            } else {
+                HdfsBufferPool.release(buffer.array());
+            }
+        }
+        if (chunkType == HdfsChunkType.ZERO_COPY && retainedChunks > 0 && --retainedChunks == 0 && pendingRenamePath != null) {
+            String renamePath = pendingRenamePath;
+            pendingRenamePath = null;
+            closeAndRename(renamePath);
+        }
+    }
+
     public final Closeable getIn() {
         return in;
     }
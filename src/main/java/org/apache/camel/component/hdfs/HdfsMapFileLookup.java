@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.hdfs;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.camel.TypeConverter;
+import org.apache.camel.util.IOHelper;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.BloomMapFile;
+import org.apache.hadoop.io.MapFile;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Looks up keys in the map files at the path of a producer in lookup mode.
+ * <p/>
+ * The path is either a map file, or a directory of map files such as the segments written with a split strategy, which
+ * are searched from the newest to the oldest. The readers are kept open in a {@link HdfsMapFileReaderPool} between
+ * lookups. A bloom map file is only searched when its bloom filter tells the key may be in it.
+ */
+final class HdfsMapFileLookup implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HdfsMapFileLookup.class);
+
+    private final String hdfsPath;
+    private final HdfsConfiguration config;
+    private final HdfsMapFileReaderPool pool;
+    private volatile HdfsInfo hdfsInfo;
+    private volatile List<Path> mapFiles;
+    private volatile long mapFilesListed;
+
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    HdfsMapFileLookup(String hdfsPath, HdfsConfiguration config) {
+        this.hdfsPath = hdfsPath;
+        this.config = config;
+        this.pool = new HdfsMapFileReaderPool(config.getLookupMaxReaders());
+    }
+
+    /**
+     * Looks up the given key.
+     *
+     * @return the value stored for the key, or <tt>null</tt> if no map file contains the key
+     */
+    Object lookup(Object key, TypeConverter typeConverter) throws IOException {
+        long start = System.nanoTime();
+        boolean found = false;
+        try {
+            for (Path file : getMapFiles()) {
+                MapFile.Reader reader = pool.poll(file);
+                if (reader == null) {
+                    reader = openReader(file);
+                }
+                boolean reusable = false;
+                try {
+                    WritableComparable<?> keyWritable = (WritableComparable<?>) HdfsFileType.getWritable(key, reader.getKeyClass(), typeConverter);
+                    if (reader instanceof BloomMapFile.Reader && !((BloomMapFile.Reader) reader).probablyHasKey(keyWritable)) {
+                        reusable = true;
+                        continue;
+                    }
+                    Writable value = (Writable) ReflectionUtils.newInstance(reader.getValueClass(), hdfsInfo.getConf());
+                    Writable answer = reader.get(keyWritable, value);
+                    reusable = true;
+                    if (answer != null) {
+                        found = true;
+                        return HdfsFileType.getObject(answer, new Holder<>());
+                    }
+                } finally {
+                    if (reusable) {
+                        closeReaders(pool.offer(file, reader));
+                    } else {
+                        // the map file may have been removed, so list the path again on the next lookup
+                        IOHelper.close(reader, "map file reader", LOG);
+                        mapFiles = null;
+                    }
+                }
+            }
+            return null;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            lookups.incrementAndGet();
+            if (found) {
+                hits.incrementAndGet();
+            }
+            totalNanos.addAndGet(elapsed);
+            maxNanos.accumulateAndGet(elapsed, Math::max);
+        }
+    }
+
+    private MapFile.Reader openReader(Path file) throws IOException {
+        LOG.debug("Opening map file reader of {}", file);
+        if (config.getFileType() == HdfsFileType.BLOOMMAP_FILE) {
+            return new BloomMapFile.Reader(file, hdfsInfo.getConf());
+        }
+        return new MapFile.Reader(file, hdfsInfo.getConf());
+    }
+
+    private List<Path> getMapFiles() throws IOException {
+        List<Path> answer = mapFiles;
+        if (answer != null && System.currentTimeMillis() - mapFilesListed <= config.getLookupReaderIdleTimeout()) {
+            return answer;
+        }
+        return listMapFiles();
+    }
+
+    private synchronized List<Path> listMapFiles() throws IOException {
+        List<Path> answer = mapFiles;
+        if (answer != null && System.currentTimeMillis() - mapFilesListed <= config.getLookupReaderIdleTimeout()) {
+            // listed by another lookup meanwhile
+            return answer;
+        }
+
+        if (hdfsInfo == null) {
+            hdfsInfo = HdfsInfoFactory.newHdfsInfo(hdfsPath, config);
+        }
+        FileSystem fs = hdfsInfo.getFileSystem();
+        Path path = hdfsInfo.getPath();
+        if (fs.exists(new Path(path, MapFile.DATA_FILE_NAME))) {
+            answer = Collections.singletonList(path);
+        } else {
+            List<FileStatus> statuses = new ArrayList<>();
+            for (FileStatus status : fs.listStatus(path)) {
+                String name = status.getPath().getName();
+                if (status.isDirectory() && !name.startsWith(".") && !name.startsWith("_")
+                        && fs.exists(new Path(status.getPath(), MapFile.DATA_FILE_NAME))) {
+                    statuses.add(status);
+                }
+            }
+            // the newest map file wins when a key has been written more than once
+            statuses.sort(Comparator.comparingLong(FileStatus::getModificationTime).reversed());
+            answer = new ArrayList<>(statuses.size());
+            for (FileStatus status : statuses) {
+                answer.add(status.getPath());
+            }
+        }
+        LOG.debug("Found {} map files at {}", answer.size(), path);
+        mapFilesListed = System.currentTimeMillis();
+        mapFiles = answer;
+        return answer;
+    }
+
+    /**
+     * Closes the readers which have not been used within the reader idle timeout.
+     */
+    void closeIdleReaders() {
+        closeReaders(pool.removeIdle(config.getLookupReaderIdleTimeout()));
+    }
+
+    @Override
+    public void close() {
+        closeReaders(pool.removeAll());
+        mapFiles = null;
+    }
+
+    private static void closeReaders(List<MapFile.Reader> readers) {
+        for (MapFile.Reader reader : readers) {
+            IOHelper.close(reader, "map file reader", LOG);
+        }
+    }
+
+    long getLookups() {
+        return lookups.get();
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getTotalNanos() {
+        return totalNanos.get();
+    }
+
+    long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    int getIdleReaders() {
+        return pool.size();
+    }
+
+    void resetStatistics() {
+        lookups.set(0);
+        hits.set(0);
+        totalNanos.set(0);
+        maxNanos.set(0);
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.hdfs;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.MapFile;
+
+/**
+ * A bounded pool of idle map file readers, used by the producer in lookup mode.
+ * <p/>
+ * A reader is taken out of the pool while a lookup uses it, so several lookups can read the same map file with
+ * their own reader. The maximum number of idle readers applies to each map file, as a lookup in a directory of
+ * segments reads every segment in turn: with a bound shared by all the segments, more segments than readers would
+ * evict the reader of a segment before it is used again, and each lookup would reopen every segment. When the
+ * maximum is exceeded the least recently used reader of the map file is evicted. Evicted readers are handed back
+ * to the caller, which is responsible for closing them outside of the pool lock.
+ */
+final class HdfsMapFileReaderPool {
+
+    private final int maxReaders;
+    private final Deque<PooledReader> readers = new ArrayDeque<>();
+
+    HdfsMapFileReaderPool(int maxReaders) {
+        this.maxReaders = maxReaders;
+    }
+
+    /**
+     * Takes the most recently used idle reader of the given map file out of the pool.
+     *
+     * @return the reader, or <tt>null</tt> if there is no idle reader of the map file
+     */
+    synchronized MapFile.Reader poll(Path file) {
+        Iterator<PooledReader> it = readers.descendingIterator();
+        while (it.hasNext()) {
+            PooledReader pooled = it.next();
+            if (pooled.file.equals(file)) {
+                it.remove();
+                return pooled.reader;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gives back the reader of the given map file once the lookup is done with it.
+     *
+     * @return the readers evicted to stay within the maximum number of idle readers of the map file
+     */
+    synchronized List<MapFile.Reader> offer(Path file, MapFile.Reader reader) {
+        List<MapFile.Reader> evicted = new ArrayList<>();
+        readers.addLast(new PooledReader(file, reader));
+        int idle = 0;
+        for (PooledReader pooled : readers) {
+            if (pooled.file.equals(file)) {
+                idle++;
+            }
+        }
+        // the readers are in the order they have been given back, so the least recently used ones come first
+        Iterator<PooledReader> it = readers.iterator();
+        while (idle > maxReaders && it.hasNext()) {
+            PooledReader pooled = it.next();
+            if (pooled.file.equals(file)) {
+                it.remove();
+                evicted.add(pooled.reader);
+                idle--;
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Removes the readers which have not been used within the given timeout.
+     *
+     * @return the removed readers
+     */
+    synchronized List<MapFile.Reader> removeIdle(long idleTimeout) {
+        List<MapFile.Reader> idle = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        // the readers are in the order they have been given back, so the idle ones are at the head
+        while (!readers.isEmpty() && now - readers.peekFirst().lastUse > idleTimeout) {
+            idle.add(readers.removeFirst().reader);
+        }
+        return idle;
+    }
+
+    synchronized List<MapFile.Reader> removeAll() {
+        List<MapFile.Reader> answer = new ArrayList<>(readers.size());
+        for (PooledReader pooled : readers) {
+            answer.add(pooled.reader);
+        }
+        readers.clear();
+        return answer;
+    }
+
+    synchronized int size() {
+        return readers.size();
+    }
+
+    private static final class PooledReader {
+        private final Path file;
+        private final MapFile.Reader reader;
+        private final long lastUse = System.currentTimeMillis();
+
+        private PooledReader(Path file, MapFile.Reader reader) {
+            this.file = file;
+            this.reader = reader;
+        }
+    }
+}
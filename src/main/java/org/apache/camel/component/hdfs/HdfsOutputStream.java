@@ -17,12 +17,16 @@
 package org.apache.camel.component.hdfs;
 
 import java.io.Closeable;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.camel.RuntimeCamelException;
 import org.apache.camel.TypeConverter;
+import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.IOUtils;
 
@@ -38,6 +42,59 @@ public class HdfsOutputStream implements Closeable {
     private final AtomicLong numOfWrittenMessages = new AtomicLong(0L);
     private final AtomicLong lastAccess = new AtomicLong(Long.MAX_VALUE);
     private final AtomicBoolean busy = new AtomicBoolean(false);
+    // in partitioned mode, the pool and the writers using the stream, the last one to let go of the stream closes it
+    private final AtomicInteger references = new AtomicInteger(1);
+    private List<SyncPolicy> syncPolicies;
+    private HdfsSyncDurability syncDurability;
+    private long numOfMessagesSinceSync;
+    private long numOfBytesSinceSync;
+    private long lastSync;
+    private long creationTime;
+    private boolean overwrite;
+    private int bufferSize;
+
+    public static final class SyncPolicy {
+        private SyncPolicyType type;
+        private long value;
+
+        public SyncPolicy(SyncPolicyType type, long value) {
+            this.type = type;
+            this.value = value;
+        }
+
+        public SyncPolicyType getType() {
+            return type;
+        }
+
+        public long getValue() {
+            return value;
+        }
+    }
+
+    public enum SyncPolicyType {
+        RECORDS {
+            @Override
+            public boolean sync(HdfsOutputStream ostream, long value) {
+                return ostream.numOfMessagesSinceSync >= value;
+            }
+        },
+
+        BYTES {
+            @Override
+            public boolean sync(HdfsOutputStream ostream, long value) {
+                return ostream.numOfBytesSinceSync >= value;
+            }
+        },
+
+        INTERVAL {
+            @Override
+            public boolean sync(HdfsOutputStream ostream, long value) {
+                return System.currentTimeMillis() - ostream.lastSync >= value;
+            }
+        };
+
+        public abstract boolean sync(HdfsOutputStream ostream, long value);
+    }
 
     protected HdfsOutputStream() {
     }
@@ -46,55 +103,126 @@ public class HdfsOutputStream implements Closeable {
         HdfsOutputStream ret = new HdfsOutputStream();
         ret.fileType = configuration.getFileType();
         ret.actualPath = hdfsPath;
+        ret.syncPolicies = configuration.getSyncPolicies();
+        ret.syncDurability = configuration.getSyncDurability();
+        ret.overwrite = configuration.isOverwrite();
+        ret.bufferSize = configuration.getBufferSize();
         ret.info = new HdfsInfo(ret.actualPath, configuration);
 
+        // keep the number of calls to the name node low, as opening streams at a high rate can overload it:
+        // no existence checks are done up front, the create and the renames report the conflicts instead
+        FileSystem fileSystem = ret.info.getFileSystem();
         ret.suffixedPath = ret.actualPath + '.' + configuration.getOpenedSuffix();
         if (configuration.isWantAppend() || configuration.isAppend()) {
-            if (!ret.info.getFileSystem().exists(new Path(ret.actualPath))) {
-                configuration.setAppend(false);
-            } else {
-                configuration.setAppend(true);
-                ret.info = new HdfsInfo(ret.suffixedPath, configuration);
-                ret.info.getFileSystem().rename(new Path(ret.actualPath), new Path(ret.suffixedPath));
-            }
-        } else {
-            if (ret.info.getFileSystem().exists(new Path(ret.actualPath))) {
+            configuration.setAppend(rename(fileSystem, new Path(ret.actualPath), new Path(ret.suffixedPath)));
+        } else if (!ret.overwrite) {
+            try {
                 //only check if not directory
-                if (!ret.info.getFileSystem().isDirectory(new Path(ret.actualPath))) {
-                    if (configuration.isOverwrite()) {
-                        ret.info.getFileSystem().delete(new Path(ret.actualPath), true);
-                    } else {
-                        throw new RuntimeCamelException("The file already exists");
-                    }
+                if (!fileSystem.getFileStatus(new Path(ret.actualPath)).isDirectory()) {
+                    throw new RuntimeCamelException("The file already exists");
                 }
+            } catch (FileNotFoundException e) {
+                // the file does not exist
             }
         }
-        ret.out = ret.fileType.createOutputStream(ret.suffixedPath, configuration);
+        ret.out = ret.fileType.createOutputStream(ret.suffixedPath, ret.info, configuration);
+        ret.creationTime = System.currentTimeMillis();
+        ret.lastSync = ret.creationTime;
         ret.opened = true;
         return ret;
     }
 
+    private static boolean rename(FileSystem fileSystem, Path src, Path dst) throws IOException {
+        try {
+            return fileSystem.rename(src, dst);
+        } catch (FileNotFoundException e) {
+            // some file systems throw rather than return false when the source does not exist
+            return false;
+        }
+    }
+
     @Override
-    public void close() throws IOException {
+    public synchronized void close() throws IOException {
         if (opened) {
             IOUtils.closeStream(out);
-            info.getFileSystem().rename(new Path(suffixedPath), new Path(actualPath));
+            opened = false;
+            FileSystem fileSystem = info.getFileSystem();
+            Path target = new Path(actualPath);
+            if (!rename(fileSystem, new Path(suffixedPath), target)) {
+                // the target is only removed now, when it turns out to be in the way
+                if (!overwrite || !fileSystem.delete(target, false) || !rename(fileSystem, new Path(suffixedPath), target)) {
+                    throw new IOException("Cannot rename " + suffixedPath + " to " + actualPath);
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes the stream without keeping the file, used for a pre-opened file nothing has been written to.
+     */
+    public synchronized void discard() throws IOException {
+        if (opened) {
+            IOUtils.closeStream(out);
+            info.getFileSystem().delete(new Path(suffixedPath), false);
             opened = false;
         }
     }
 
     public void append(Object key, Object value, TypeConverter typeConverter) {
+        append(key, value, typeConverter, true);
+    }
+
+    /**
+     * Appends a record, and syncs according to the sync policy unless <tt>applySyncPolicy</tt> is false, in which case the
+     * caller is in charge of syncing, as the group commit writer does once per group. This is synchronized with
+     * {@link #sync(HdfsSyncDurability)}, which resets the counters of the sync policy, and with {@link #close()}.
+     */
+    synchronized void append(Object key, Object value, TypeConverter typeConverter, boolean applySyncPolicy) {
         try {
             busy.set(true);
             long nb = fileType.append(this, key, value, typeConverter);
             numOfWrittenBytes.addAndGet(nb);
             numOfWrittenMessages.incrementAndGet();
             lastAccess.set(System.currentTimeMillis());
+            numOfBytesSinceSync += nb;
+            numOfMessagesSinceSync++;
+            if (applySyncPolicy && isSyncRequired()) {
+                sync(syncDurability);
+            }
+        } catch (IOException ex) {
+            throw new RuntimeCamelException(ex);
         } finally {
             busy.set(false);
         }
     }
 
+    private boolean isSyncRequired() {
+        if (syncPolicies == null || syncPolicies.isEmpty()) {
+            // no policy configured so sync after every record
+            return true;
+        }
+        for (SyncPolicy syncPolicy : syncPolicies) {
+            if (syncPolicy.type.sync(this, syncPolicy.value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes a sync point for the file types which have them (SEQUENCE_FILE), and then makes the written data durable
+     * at the given level. MAP_FILE, BLOOMMAP_FILE and ARRAY_FILE writers are only made durable when closed.
+     */
+    public synchronized void sync(HdfsSyncDurability durability) throws IOException {
+        if (opened) {
+            fileType.sync(this);
+            durability.apply(out);
+            numOfMessagesSinceSync = 0;
+            numOfBytesSinceSync = 0;
+            lastSync = System.currentTimeMillis();
+        }
+    }
+
     public long getNumOfWrittenBytes() {
         return numOfWrittenBytes.longValue();
     }
@@ -103,10 +231,18 @@ public class HdfsOutputStream implements Closeable {
         return numOfWrittenMessages.longValue();
     }
 
+    public long getCreationTime() {
+        return creationTime;
+    }
+
     public long getLastAccess() {
         return lastAccess.longValue();
     }
 
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
     public String getActualPath() {
         return actualPath;
     }
@@ -115,6 +251,30 @@ public class HdfsOutputStream implements Closeable {
         return busy;
     }
 
+    /**
+     * Adds a reference to the stream, taken by a writer under the pool lock before it writes, so the stream is not closed
+     * under its feet when the pool evicts or rolls it meanwhile.
+     */
+    void retain() {
+        references.incrementAndGet();
+    }
+
+    /**
+     * Removes a reference to the stream.
+     *
+     * @return whether this was the last reference, and the stream has to be closed
+     */
+    boolean releaseReference() {
+        return references.decrementAndGet() == 0;
+    }
+
+    /**
+     * Whether a writer holds or writes to the stream.
+     */
+    boolean isInUse() {
+        return references.get() > 1 || busy.get();
+    }
+
     public Closeable getOut() {
         return out;
     }
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.hdfs;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bounded pool of open output streams, one per partition, used by the producer in partitioned mode.
+ * <p/>
+ * The pool keeps the streams in access order, so when the maximum number of open streams is exceeded
+ * the least recently used stream is evicted. Evicted streams are handed back to the caller, which is
+ * responsible for releasing the reference the pool held on them outside of the pool lock. A stream
+ * evicted while a writer uses it is closed by that writer when it is done.
+ */
+public final class HdfsOutputStreamPool {
+
+    private final int maxOpenStreams;
+    private final Map<String, HdfsOutputStream> streams = new LinkedHashMap<>(16, 0.75f, true);
+
+    public HdfsOutputStreamPool(int maxOpenStreams) {
+        this.maxOpenStreams = maxOpenStreams;
+    }
+
+    public synchronized HdfsOutputStream get(String partition) {
+        return streams.get(partition);
+    }
+
+    /**
+     * Gets the stream of the given partition, with a reference taken for the caller under the pool lock.
+     */
+    synchronized HdfsOutputStream acquire(String partition) {
+        HdfsOutputStream stream = streams.get(partition);
+        if (stream != null) {
+            stream.retain();
+        }
+        return stream;
+    }
+
+    /**
+     * Adds the stream for the given partition.
+     *
+     * @return the streams evicted to stay within the maximum number of open streams
+     */
+    public synchronized List<HdfsOutputStream> put(String partition, HdfsOutputStream stream) {
+        List<HdfsOutputStream> evicted = new ArrayList<>();
+        HdfsOutputStream old = streams.put(partition, stream);
+        if (old != null && old != stream) {
+            evicted.add(old);
+        }
+        Iterator<HdfsOutputStream> it = streams.values().iterator();
+        while (streams.size() > maxOpenStreams && it.hasNext()) {
+            HdfsOutputStream candidate = it.next();
+            // never evict the stream just added
+            if (candidate != stream) {
+                it.remove();
+                evicted.add(candidate);
+            }
+        }
+        return evicted;
+    }
+
+    public synchronized HdfsOutputStream remove(String partition) {
+        return streams.remove(partition);
+    }
+
+    /**
+     * Removes the streams which have not been written to within the given timeout.
+     *
+     * @return the removed streams
+     */
+    public synchronized List<HdfsOutputStream> removeIdle(long idleTimeout) {
+        List<HdfsOutputStream> idle = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        Iterator<HdfsOutputStream> it = streams.values().iterator();
+        while (it.hasNext()) {
+            HdfsOutputStream stream = it.next();
+            if (now - stream.getLastAccess() > idleTimeout && !stream.isInUse()) {
+                it.remove();
+                idle.add(stream);
+            }
+        }
+        return idle;
+    }
+
+    /**
+     * Removes the streams which have been created before the given time.
+     *
+     * @return the removed streams
+     */
+    public synchronized List<HdfsOutputStream> removeCreatedBefore(long time) {
+        List<HdfsOutputStream> old = new ArrayList<>();
+        Iterator<HdfsOutputStream> it = streams.values().iterator();
+        while (it.hasNext()) {
+            HdfsOutputStream stream = it.next();
+            if (stream.getCreationTime() < time) {
+                it.remove();
+                old.add(stream);
+            }
+        }
+        return old;
+    }
+
+    public synchronized List<HdfsOutputStream> removeAll() {
+        List<HdfsOutputStream> answer = new ArrayList<>(streams.values());
+        streams.clear();
+        return answer;
+    }
+
+    public synchronized int size() {
+        return streams.size();
+    }
+}
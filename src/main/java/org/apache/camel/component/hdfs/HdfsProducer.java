@@ -17,30 +17,61 @@
 package org.apache.camel.component.hdfs;
 
 import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.security.auth.login.Configuration;
 
+import org.apache.camel.AsyncCallback;
 import org.apache.camel.Exchange;
 import org.apache.camel.Expression;
-import org.apache.camel.support.DefaultProducer;
+import org.apache.camel.api.management.ManagedAttribute;
+import org.apache.camel.api.management.ManagedOperation;
+import org.apache.camel.api.management.ManagedResource;
+import org.apache.camel.support.DefaultAsyncProducer;
 import org.apache.camel.util.IOHelper;
 import org.apache.camel.util.StringHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class HdfsProducer extends DefaultProducer {
+@ManagedResource(description = "Managed HDFS producer")
+public class HdfsProducer extends DefaultAsyncProducer {
 
     private static final Logger LOG = LoggerFactory.getLogger(HdfsProducer.class);
 
+    private static final long WRITER_POLL_TIMEOUT = 100L;
+    private static final int PARTITION_LOCKS = 64;
+
     private final HdfsConfiguration config;
     private final StringBuilder hdfsPath;
     private final AtomicBoolean idle = new AtomicBoolean(false);
     private volatile ScheduledExecutorService scheduler;
     private volatile HdfsOutputStream ostream;
+    private final Object writeLock = new Object();
+    private volatile HdfsOutputStreamPool streamPool;
+    private final Object[] partitionLocks = new Object[PARTITION_LOCKS];
+    private Expression partitionExpression;
+    private volatile BlockingQueue<PendingWrite> writeQueue;
+    private volatile ExecutorService writer;
+    private volatile boolean writerRunning;
+    private SplitStrategy intervalStrategy;
+    private volatile ExecutorService preOpener;
+    private volatile Future<HdfsOutputStream> nextOstream;
+    private DateTimeFormatter intervalDirectoryFormatter;
+    private final HdfsMapFileLookup lookup;
 
     public static final class SplitStrategy {
         private SplitStrategyType type;
@@ -80,6 +111,13 @@ public class HdfsProducer extends DefaultProducer {
             public boolean split(HdfsOutputStream oldOstream, long value, HdfsProducer producer) {
                 return producer.idle.get();
             }
+        },
+
+        INTERVAL {
+            @Override
+            public boolean split(HdfsOutputStream oldOstream, long value, HdfsProducer producer) {
+                return intervalStart(oldOstream.getCreationTime(), value) < intervalStart(System.currentTimeMillis(), value);
+            }
         };
 
         public abstract boolean split(HdfsOutputStream oldOstream, long value, HdfsProducer producer);
@@ -89,6 +127,10 @@ public class HdfsProducer extends DefaultProducer {
         super(endpoint);
         this.config = config;
         this.hdfsPath = config.getFileSystemType().getHdfsPath(config);
+        for (int i = 0; i < partitionLocks.length; i++) {
+            partitionLocks[i] = new Object();
+        }
+        this.lookup = config.getOperation() == HdfsOperation.LOOKUP ? new HdfsMapFileLookup(hdfsPath.toString(), config) : null;
     }
 
     @Override
@@ -96,6 +138,39 @@ public class HdfsProducer extends DefaultProducer {
         return (HdfsEndpoint) super.getEndpoint();
     }
 
+    @ManagedAttribute(description = "Number of lookups")
+    public long getLookups() {
+        return lookup != null ? lookup.getLookups() : 0;
+    }
+
+    @ManagedAttribute(description = "Number of lookups which found the key")
+    public long getLookupHits() {
+        return lookup != null ? lookup.getHits() : 0;
+    }
+
+    @ManagedAttribute(description = "Mean lookup time in micros")
+    public long getMeanLookupTime() {
+        long lookups = getLookups();
+        return lookups > 0 ? TimeUnit.NANOSECONDS.toMicros(lookup.getTotalNanos() / lookups) : 0;
+    }
+
+    @ManagedAttribute(description = "Max lookup time in micros")
+    public long getMaxLookupTime() {
+        return lookup != null ? TimeUnit.NANOSECONDS.toMicros(lookup.getMaxNanos()) : 0;
+    }
+
+    @ManagedAttribute(description = "Number of map file readers kept open between lookups")
+    public int getIdleLookupReaders() {
+        return lookup != null ? lookup.getIdleReaders() : 0;
+    }
+
+    @ManagedOperation(description = "Resets the lookup statistics")
+    public void resetLookupStatistics() {
+        if (lookup != null) {
+            lookup.resetStatistics();
+        }
+    }
+
     @Override
     protected void doStart() {
         // need to remember auth as Hadoop will override that, which otherwise means the Auth is broken afterwards
@@ -103,23 +178,85 @@ public class HdfsProducer extends DefaultProducer {
         try {
             super.doStart();
 
-            // setup hdfs if configured to do on startup
-            if (getEndpoint().getConfig().isConnectOnStartup()) {
-                ostream = setupHdfs(true);
+            if (lookup != null) {
+                // the map files are opened on the first lookups, and nothing is written
+                createScheduler();
+                log.debug("Creating LookupIdleCheck task scheduled to run every {} millis", config.getCheckIdleInterval());
+                scheduler.scheduleAtFixedRate(new LookupIdleCheck(), config.getCheckIdleInterval(), config.getCheckIdleInterval(), TimeUnit.MILLISECONDS);
+                return;
+            }
+
+            if (config.getMaxOpenStreams() > 0) {
+                streamPool = new HdfsOutputStreamPool(config.getMaxOpenStreams());
+                if (config.getPartitionExpression() != null) {
+                    partitionExpression = getEndpoint().getCamelContext().resolveLanguage("simple").createExpression(config.getPartitionExpression());
+                }
             }
 
             SplitStrategy idleStrategy = null;
+            intervalStrategy = null;
+            intervalDirectoryFormatter = null;
             for (SplitStrategy strategy : config.getSplitStrategies()) {
-                if (strategy.type == SplitStrategyType.IDLE) {
+                if (strategy.type == SplitStrategyType.IDLE && idleStrategy == null) {
                     idleStrategy = strategy;
-                    break;
+                } else if (strategy.type == SplitStrategyType.INTERVAL && intervalStrategy == null) {
+                    intervalStrategy = strategy;
                 }
             }
-            if (idleStrategy != null) {
-                scheduler = getEndpoint().getCamelContext().getExecutorServiceManager().newSingleThreadScheduledExecutor(this, "HdfsIdleCheck");
+            if (intervalStrategy != null && config.getSplitDirectoryPattern() != null) {
+                intervalDirectoryFormatter = DateTimeFormatter.ofPattern(config.getSplitDirectoryPattern()).withZone(ZoneOffset.UTC);
+            }
+            if (streamPool != null) {
+                long idleTimeout = config.getStreamIdleTimeout();
+                if (idleTimeout <= 0 && idleStrategy != null) {
+                    idleTimeout = idleStrategy.value;
+                }
+                if (idleTimeout > 0) {
+                    createScheduler();
+                    log.debug("Creating PoolIdleCheck task scheduled to run every {} millis", config.getCheckIdleInterval());
+                    scheduler.scheduleAtFixedRate(new PoolIdleCheck(idleTimeout), config.getCheckIdleInterval(), config.getCheckIdleInterval(), TimeUnit.MILLISECONDS);
+                }
+            } else if (idleStrategy != null) {
+                createScheduler();
                 log.debug("Creating IdleCheck task scheduled to run every {} millis", config.getCheckIdleInterval());
                 scheduler.scheduleAtFixedRate(new IdleCheck(idleStrategy), config.getCheckIdleInterval(), config.getCheckIdleInterval(), TimeUnit.MILLISECONDS);
             }
+            if (intervalStrategy != null) {
+                // align the rolls with the interval boundaries, so they also happen when no message arrives
+                long interval = intervalStrategy.value;
+                long now = System.currentTimeMillis();
+                long initialDelay = intervalStart(now, interval) + interval - now;
+                createScheduler();
+                log.debug("Creating IntervalRoll task scheduled to run every {} millis", interval);
+                scheduler.scheduleAtFixedRate(new IntervalRoll(intervalStrategy), initialDelay, interval, TimeUnit.MILLISECONDS);
+            }
+
+            if (config.isPreOpenNextFile() && streamPool == null) {
+                for (SplitStrategy strategy : config.getSplitStrategies()) {
+                    if (strategy.type == SplitStrategyType.BYTES || strategy.type == SplitStrategyType.MESSAGES) {
+                        preOpener = getEndpoint().getCamelContext().getExecutorServiceManager().newSingleThreadExecutor(this, "HdfsPreOpen");
+                        break;
+                    }
+                }
+            }
+
+            // setup hdfs if configured to do on startup
+            if (getEndpoint().getConfig().isConnectOnStartup()) {
+                if (streamPool != null) {
+                    // in partitioned mode the streams are created on demand, so only connect
+                    HdfsInfoFactory.newHdfsInfo(hdfsPath.toString(), config);
+                } else {
+                    ostream = setupHdfs(true);
+                }
+            }
+
+            if (config.getWriterQueueSize() > 0) {
+                writeQueue = new LinkedBlockingQueue<>(config.getWriterQueueSize());
+                writerRunning = true;
+                writer = getEndpoint().getCamelContext().getExecutorServiceManager().newSingleThreadExecutor(this, "HdfsWriter");
+                log.debug("Creating GroupCommitWriter task with queue size {} and batch size {}", config.getWriterQueueSize(), config.getWriterBatchSize());
+                writer.submit(new GroupCommitWriter());
+            }
         } catch (Exception e) {
             LOG.warn("Failed to start the HDFS producer. Caused by: [{}]", e.getMessage());
             LOG.trace("", e);
@@ -129,6 +266,20 @@ public class HdfsProducer extends DefaultProducer {
         }
     }
 
+    private void createScheduler() {
+        if (scheduler == null) {
+            scheduler = getEndpoint().getCamelContext().getExecutorServiceManager().newSingleThreadScheduledExecutor(this, "HdfsIdleCheck");
+        }
+    }
+
+    /**
+     * The start of the interval the given time belongs to. The intervals are aligned on the epoch, so for example
+     * intervals of 5 minutes start at :00, :05 and so on.
+     */
+    static long intervalStart(long time, long interval) {
+        return time - (time % interval);
+    }
+
     private synchronized HdfsOutputStream setupHdfs(boolean onStartup) throws Exception {
         if (ostream != null) {
             return ostream;
@@ -164,83 +315,318 @@ public class HdfsProducer extends DefaultProducer {
     @Override
     protected void doStop() throws Exception {
         super.doStop();
+        if (writer != null) {
+            // let the writer commit what is already queued before the streams are closed
+            BlockingQueue<PendingWrite> queue = writeQueue;
+            writerRunning = false;
+            getEndpoint().getCamelContext().getExecutorServiceManager().shutdownGraceful(writer);
+            writer = null;
+            writeQueue = null;
+            failPendingWrites(queue);
+        }
         if (scheduler != null) {
             getEndpoint().getCamelContext().getExecutorServiceManager().shutdown(scheduler);
             scheduler = null;
         }
+        if (preOpener != null) {
+            // let the pending closes complete, and remove the pre-opened file which has not been used
+            getEndpoint().getCamelContext().getExecutorServiceManager().shutdownGraceful(preOpener);
+            preOpener = null;
+            Future<HdfsOutputStream> next = nextOstream;
+            nextOstream = null;
+            if (next != null) {
+                try {
+                    next.get().discard();
+                } catch (Exception e) {
+                    log.debug("Error discarding the pre-opened output stream. This exception is ignored.", e);
+                }
+            }
+        }
         if (ostream != null) {
             IOHelper.close(ostream, "output stream", log);
             ostream = null;
         }
+        if (streamPool != null) {
+            closeStreams(streamPool.removeAll());
+            streamPool = null;
+        }
+        if (lookup != null) {
+            lookup.close();
+        }
     }
 
     @Override
     public void process(Exchange exchange) throws Exception {
+        if (lookup != null) {
+            // need to remember auth as Hadoop will override that, which otherwise means the Auth is broken afterwards
+            Configuration auth = config.getJAASConfiguration();
+            try {
+                doLookup(exchange);
+            } finally {
+                config.setJAASConfiguration(auth);
+            }
+            return;
+        }
+
+        if (writeQueue != null) {
+            // wait for the group commit of the writer thread
+            super.process(exchange);
+            return;
+        }
+
         // need to remember auth as Hadoop will override that, which otherwise means the Auth is broken afterwards
         Configuration auth = config.getJAASConfiguration();
         try {
-            doProcess(exchange);
+            doProcess(exchange, true);
         } finally {
             config.setJAASConfiguration(auth);
         }
     }
 
-    void doProcess(Exchange exchange) throws Exception {
+    @Override
+    public boolean process(Exchange exchange, AsyncCallback callback) {
+        BlockingQueue<PendingWrite> queue = writeQueue;
+        if (queue == null) {
+            try {
+                process(exchange);
+            } catch (Exception e) {
+                exchange.setException(e);
+            }
+            callback.done(true);
+            return true;
+        }
+
+        PendingWrite write = new PendingWrite(exchange, callback);
+        try {
+            // blocks when the queue is full, which gives back pressure to the routes
+            queue.put(write);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.setException(e);
+            callback.done(true);
+            return true;
+        }
+        // the producer may have stopped meanwhile, and the writer may have left already, so the write is failed unless
+        // the writer has taken it
+        if (!writerRunning && queue.remove(write)) {
+            exchange.setException(new RejectedExecutionException("The HDFS producer is stopped"));
+            callback.done(true);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Fails the writes left in the queue once the writer has stopped, so their exchanges do not wait forever.
+     */
+    private void failPendingWrites(BlockingQueue<PendingWrite> queue) {
+        PendingWrite write = queue.poll();
+        while (write != null) {
+            write.exchange.setException(new RejectedExecutionException("The HDFS producer is stopped"));
+            write.callback.done(false);
+            write = queue.poll();
+        }
+    }
+
+    /**
+     * Writes the exchange.
+     *
+     * @param applySyncPolicy whether to sync according to the sync policy, or to leave the sync to the caller
+     * @return the stream written to, or <tt>null</tt> if the stream has been closed after the write
+     */
+    HdfsOutputStream doProcess(Exchange exchange, boolean applySyncPolicy) throws Exception {
+        if (streamPool != null) {
+            return doProcessPartitioned(exchange, applySyncPolicy);
+        }
+
         Object body = exchange.getIn().getBody();
         Object key = exchange.getIn().getHeader(HdfsHeader.KEY.name());
 
-        // if an explicit filename is specified, close any existing stream and append the filename to the hdfsPath
-        if (exchange.getIn().getHeader(Exchange.FILE_NAME) != null) {
-            if (ostream != null) {
-                IOHelper.close(ostream, "output stream", log);
+        // the write lock keeps the interval roll from closing the stream while the message is written to it
+        synchronized (writeLock) {
+            HdfsOutputStream stream = ostream;
+            // if an explicit filename is specified, close any existing stream and append the filename to the hdfsPath
+            if (exchange.getIn().getHeader(Exchange.FILE_NAME) != null) {
+                if (stream != null) {
+                    IOHelper.close(stream, "output stream", log);
+                }
+                StringBuilder actualPath = getHdfsPathUsingFileNameHeader(exchange);
+                stream = HdfsOutputStream.createOutputStream(actualPath.toString(), config);
+            } else if (stream == null) {
+                // must have ostream
+                stream = nextOstream != null ? nextOutputStream() : setupHdfs(false);
+            }
+            ostream = stream;
+
+            boolean split = false;
+            List<SplitStrategy> strategies = config.getSplitStrategies();
+            for (SplitStrategy splitStrategy : strategies) {
+                split |= splitStrategy.getType().split(stream, splitStrategy.value, this);
+            }
+
+            if (split) {
+                HdfsOutputStream old = stream;
+                stream = nextOutputStream();
+                ostream = stream;
+                closeOutputStream(old);
+            }
+
+            String path = stream.getActualPath();
+            log.trace("Writing body to hdfs-file {}", path);
+            stream.append(key, body, exchange.getContext().getTypeConverter(), applySyncPolicy);
+
+            if (preOpener != null && nextOstream == null && isSplitNear(stream)) {
+                log.trace("Pre-opening the next file as {} is close to be split", path);
+                nextOstream = preOpener.submit(this::preOpenOutputStream);
+            }
+
+            idle.set(false);
+
+            // close if we do not have idle checker task to do this for us
+            boolean close = scheduler == null;
+            // but user may have a header to explict control the close
+            Boolean closeHeader = exchange.getIn().getHeader(HdfsConstants.HDFS_CLOSE, Boolean.class);
+            if (closeHeader != null) {
+                close = closeHeader;
+            }
+
+            HdfsOutputStream answer = stream;
+            // if no idle checker then we need to explicit close the stream after usage
+            if (close) {
+                try {
+                    HdfsProducer.this.log.trace("Closing stream");
+                    stream.close();
+                    ostream = null;
+                    answer = null;
+                } catch (IOException e) {
+                    // ignore
+                }
             }
-            StringBuilder actualPath = getHdfsPathUsingFileNameHeader(exchange);
-            ostream = HdfsOutputStream.createOutputStream(actualPath.toString(), config);
-        } else if (ostream == null) {
-            // must have ostream
-            ostream = setupHdfs(false);
+
+            log.debug("Wrote body to hdfs-file {}", path);
+            return answer;
         }
+    }
 
-        boolean split = false;
-        List<SplitStrategy> strategies = config.getSplitStrategies();
-        for (SplitStrategy splitStrategy : strategies) {
-            split |= splitStrategy.getType().split(ostream, splitStrategy.value, this);
+    /**
+     * Writes the exchange to the pooled stream of its partition, creating (or rolling) the stream when needed.
+     */
+    private HdfsOutputStream doProcessPartitioned(Exchange exchange, boolean applySyncPolicy) throws Exception {
+        Object body = exchange.getIn().getBody();
+        Object key = exchange.getIn().getHeader(HdfsHeader.KEY.name());
+        String partition = getPartition(exchange);
+
+        List<HdfsOutputStream> toClose = new ArrayList<>();
+        HdfsOutputStream partitionStream = acquirePartitionStream(partition, toClose);
+        if (partitionStream == null) {
+            // the partition lock guards against two threads creating the same partition file concurrently, and the
+            // file is created outside of the pool lock, so the writers of the other partitions do not wait for it
+            synchronized (partitionLocks[(partition.hashCode() & Integer.MAX_VALUE) % partitionLocks.length]) {
+                partitionStream = acquirePartitionStream(partition, toClose);
+                if (partitionStream == null) {
+                    partitionStream = HdfsOutputStream.createOutputStream(getPartitionFileName(partition).toString(), config);
+                    partitionStream.retain();
+                    synchronized (streamPool) {
+                        toClose.addAll(streamPool.put(partition, partitionStream));
+                    }
+                }
+            }
         }
+        closeStreams(toClose);
 
-        if (split) {
-            if (ostream != null) {
-                IOHelper.close(ostream, "output stream", log);
+        String path = partitionStream.getActualPath();
+        boolean close = false;
+        try {
+            log.trace("Writing body to hdfs-file {}", path);
+            partitionStream.append(key, body, exchange.getContext().getTypeConverter(), applySyncPolicy);
+
+            // the pool keeps the stream open, unless the user explicit asks to close it
+            Boolean closeHeader = exchange.getIn().getHeader(HdfsConstants.HDFS_CLOSE, Boolean.class);
+            if (closeHeader != null && closeHeader) {
+                close = true;
+                boolean pooled;
+                synchronized (streamPool) {
+                    // unless already evicted or rolled, which released the reference of the pool
+                    pooled = streamPool.get(partition) == partitionStream;
+                    if (pooled) {
+                        streamPool.remove(partition);
+                    }
+                }
+                if (pooled) {
+                    closeStreams(Collections.singletonList(partitionStream));
+                }
             }
-            StringBuilder actualPath = newFileName();
-            ostream = HdfsOutputStream.createOutputStream(actualPath.toString(), config);
+        } finally {
+            // the stream is closed here if it has been evicted or rolled while being written to
+            closeStreams(Collections.singletonList(partitionStream));
         }
 
-        String path = ostream.getActualPath();
-        log.trace("Writing body to hdfs-file {}", path);
-        ostream.append(key, body, exchange.getContext().getTypeConverter());
+        log.debug("Wrote body to hdfs-file {}", path);
+        return close ? null : partitionStream;
+    }
+
+    /**
+     * Gets the pooled stream of the partition with a reference taken for the writer, after removing it from the pool if it
+     * has to be rolled.
+     *
+     * @return the stream, or <tt>null</tt> if a new stream has to be created for the partition
+     */
+    private HdfsOutputStream acquirePartitionStream(String partition, List<HdfsOutputStream> toClose) {
+        synchronized (streamPool) {
+            HdfsOutputStream partitionStream = streamPool.get(partition);
+            if (partitionStream != null && isSplit(partitionStream)) {
+                streamPool.remove(partition);
+                toClose.add(partitionStream);
+                return null;
+            }
+            return streamPool.acquire(partition);
+        }
+    }
 
-        idle.set(false);
+    /**
+     * Whether any of the split strategies which can be evaluated per stream requires the stream to be rolled.
+     * The IDLE strategy is handled by the pool idle check instead.
+     */
+    private boolean isSplit(HdfsOutputStream stream) {
+        for (SplitStrategy splitStrategy : config.getSplitStrategies()) {
+            if (splitStrategy.type != SplitStrategyType.IDLE && splitStrategy.type.split(stream, splitStrategy.value, this)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-        // close if we do not have idle checker task to do this for us
-        boolean close = scheduler == null;
-        // but user may have a header to explict control the close
-        Boolean closeHeader = exchange.getIn().getHeader(HdfsConstants.HDFS_CLOSE, Boolean.class);
-        if (closeHeader != null) {
-            close = closeHeader;
+    private String getPartition(Exchange exchange) {
+        if (partitionExpression != null) {
+            String partition = partitionExpression.evaluate(exchange, String.class);
+            return partition != null ? partition : "";
         }
+        return getFileName(exchange);
+    }
 
-        // if no idle checker then we need to explicit close the stream after usage
-        if (close) {
-            try {
-                HdfsProducer.this.log.trace("Closing stream");
-                ostream.close();
-                ostream = null;
-            } catch (IOException e) {
-                // ignore
+    private StringBuilder getPartitionFileName(String partition) {
+        StringBuilder actualPath = new StringBuilder(hdfsPath).append(partition);
+        if (config.getSplitStrategies().size() > 0) {
+            // the partition is a directory holding the rolled files
+            if (!partition.isEmpty()) {
+                actualPath.append('/');
             }
+            appendIntervalDirectory(actualPath);
+            actualPath.append(StringHelper.sanitize(getEndpoint().getCamelContext().getUuidGenerator().generateUuid()));
         }
+        return actualPath;
+    }
 
-        log.debug("Wrote body to hdfs-file {}", path);
+    /**
+     * Releases a reference to each of the pooled streams, and closes the streams nobody uses anymore.
+     */
+    private void closeStreams(List<HdfsOutputStream> streams) {
+        for (HdfsOutputStream stream : streams) {
+            if (stream.releaseReference()) {
+                log.trace("Closing stream {}", stream.getActualPath());
+                IOHelper.close(stream, "output stream", log);
+            }
+        }
     }
 
     /**
@@ -250,6 +636,10 @@ public class HdfsProducer extends DefaultProducer {
      */
     private StringBuilder getHdfsPathUsingFileNameHeader(Exchange exchange) {
         StringBuilder actualPath = new StringBuilder(hdfsPath);
+        return actualPath.append(getFileName(exchange));
+    }
+
+    private String getFileName(Exchange exchange) {
         String fileName = "";
         Object value = exchange.getIn().getHeader(Exchange.FILE_NAME);
         if (value instanceof String) {
@@ -257,15 +647,85 @@ public class HdfsProducer extends DefaultProducer {
         } else if (value instanceof Expression) {
             fileName =  ((Expression) value).evaluate(exchange, String.class);
         }
-        return actualPath.append(fileName);
+        return fileName;
     }
 
     private StringBuilder newFileName() {
         StringBuilder actualPath = new StringBuilder(hdfsPath);
+        appendIntervalDirectory(actualPath);
         actualPath.append(StringHelper.sanitize(getEndpoint().getCamelContext().getUuidGenerator().generateUuid()));
         return actualPath;
     }
 
+    /**
+     * Whether the stream reached the pre-open threshold of one of the BYTES or MESSAGES split strategies.
+     */
+    private boolean isSplitNear(HdfsOutputStream stream) {
+        for (SplitStrategy splitStrategy : config.getSplitStrategies()) {
+            long threshold = (long) (splitStrategy.value * HdfsConstants.PRE_OPEN_THRESHOLD);
+            if (splitStrategy.type == SplitStrategyType.BYTES && stream.getNumOfWrittenBytes() >= threshold) {
+                return true;
+            }
+            if (splitStrategy.type == SplitStrategyType.MESSAGES && stream.getNumOfWrittenMessages() >= threshold) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The stream to roll to, which is the pre-opened stream if there is one.
+     */
+    private HdfsOutputStream nextOutputStream() throws IOException {
+        Future<HdfsOutputStream> next = nextOstream;
+        nextOstream = null;
+        if (next != null) {
+            try {
+                return next.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                log.warn("Failed to pre-open the next file, creating it now. Caused by: [{}]", e.getCause().getMessage());
+            }
+        }
+        return HdfsOutputStream.createOutputStream(newFileName().toString(), config);
+    }
+
+    private HdfsOutputStream preOpenOutputStream() throws IOException {
+        Configuration auth = config.getJAASConfiguration();
+        try {
+            return HdfsOutputStream.createOutputStream(newFileName().toString(), config);
+        } finally {
+            config.setJAASConfiguration(auth);
+        }
+    }
+
+    /**
+     * Closes the rolled stream, in the background when pre-opening is enabled.
+     */
+    private void closeOutputStream(HdfsOutputStream stream) {
+        ExecutorService executor = preOpener;
+        if (executor == null) {
+            IOHelper.close(stream, "output stream", log);
+            return;
+        }
+        executor.submit(() -> {
+            Configuration auth = config.getJAASConfiguration();
+            try {
+                IOHelper.close(stream, "output stream", log);
+            } finally {
+                config.setJAASConfiguration(auth);
+            }
+        });
+    }
+
+    private void appendIntervalDirectory(StringBuilder actualPath) {
+        if (intervalDirectoryFormatter != null) {
+            long start = intervalStart(System.currentTimeMillis(), intervalStrategy.value);
+            actualPath.append(intervalDirectoryFormatter.format(Instant.ofEpochMilli(start))).append('/');
+        }
+    }
+
     /**
      * Idle check background task
      */
@@ -302,5 +762,196 @@ public class HdfsProducer extends DefaultProducer {
             return "IdleCheck";
         }
     }
+
+    /**
+     * Interval roll background task, running at every interval boundary
+     */
+    private final class IntervalRoll implements Runnable {
+
+        private final SplitStrategy strategy;
+
+        private IntervalRoll(SplitStrategy strategy) {
+            this.strategy = strategy;
+        }
+
+        @Override
+        public void run() {
+            HdfsProducer.this.log.trace("IntervalRoll running");
+
+            long start = intervalStart(System.currentTimeMillis(), strategy.value);
+            HdfsOutputStreamPool pool = streamPool;
+            if (pool != null) {
+                closeStreams(pool.removeCreatedBefore(start));
+                return;
+            }
+
+            synchronized (writeLock) {
+                HdfsOutputStream current = ostream;
+                if (current != null && current.getCreationTime() < start) {
+                    // the next message opens a new file, as after a split
+                    ostream = null;
+                    try {
+                        HdfsProducer.this.log.trace("Closing stream as interval elapsed");
+                        current.close();
+                    } catch (IOException e) {
+                        // ignore
+                    }
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "IntervalRoll";
+        }
+    }
+
+    /**
+     * An exchange waiting in the queue of the group commit writer
+     */
+    private static final class PendingWrite {
+
+        private final Exchange exchange;
+        private final AsyncCallback callback;
+        private HdfsOutputStream stream;
+
+        private PendingWrite(Exchange exchange, AsyncCallback callback) {
+            this.exchange = exchange;
+            this.callback = callback;
+        }
+    }
+
+    /**
+     * Background task which drains the write queue in groups. Every exchange of a group is written, then each stream
+     * written to is flushed once, and only then the callbacks of the group are completed.
+     */
+    private final class GroupCommitWriter implements Runnable {
+
+        @Override
+        public void run() {
+            List<PendingWrite> group = new ArrayList<>(config.getWriterBatchSize());
+            BlockingQueue<PendingWrite> queue = writeQueue;
+            while (writerRunning || !queue.isEmpty()) {
+                try {
+                    PendingWrite first = queue.poll(WRITER_POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    group.add(first);
+                    queue.drainTo(group, config.getWriterBatchSize() - 1);
+                    commit(group);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } finally {
+                    group.clear();
+                }
+            }
+            failPendingWrites(queue);
+        }
+
+        private void commit(List<PendingWrite> group) {
+            // need to remember auth as Hadoop will override that, which otherwise means the Auth is broken afterwards
+            Configuration auth = config.getJAASConfiguration();
+            try {
+                for (PendingWrite write : group) {
+                    try {
+                        // the records are not synced one by one, but once for the whole group below
+                        write.stream = doProcess(write.exchange, false);
+                    } catch (Exception e) {
+                        write.exchange.setException(e);
+                    }
+                }
+
+                // a group is at least flushed, even if the records themselves are not synced
+                HdfsSyncDurability durability = config.getSyncDurability() == HdfsSyncDurability.HSYNC ? HdfsSyncDurability.HSYNC : HdfsSyncDurability.HFLUSH;
+                List<HdfsOutputStream> flushed = new ArrayList<>();
+                for (PendingWrite write : group) {
+                    if (write.stream == null || write.exchange.getException() != null || flushed.contains(write.stream)) {
+                        continue;
+                    }
+                    flushed.add(write.stream);
+                    try {
+                        write.stream.sync(durability);
+                    } catch (IOException e) {
+                        // none of the exchanges written to this stream are durable
+                        for (PendingWrite other : group) {
+                            if (other.stream == write.stream) {
+                                other.exchange.setException(e);
+                            }
+                        }
+                    }
+                }
+            } finally {
+                config.setJAASConfiguration(auth);
+            }
+
+            for (PendingWrite write : group) {
+                write.callback.done(false);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "GroupCommitWriter";
+        }
+    }
+
+    /**
+     * Replaces the body with the value stored for the key of the message, or with null if the key is not found.
+     */
+    private void doLookup(Exchange exchange) throws IOException {
+        Object key = exchange.getIn().getHeader(HdfsHeader.KEY.name());
+        if (key == null) {
+            key = exchange.getIn().getBody();
+        }
+        Object value = lookup.lookup(key, exchange.getContext().getTypeConverter());
+        exchange.getIn().setBody(value);
+    }
+
+    /**
+     * Idle check background task for the readers of the map file lookups
+     */
+    private final class LookupIdleCheck implements Runnable {
+
+        @Override
+        public void run() {
+            HdfsProducer.this.log.trace("LookupIdleCheck running");
+            lookup.closeIdleReaders();
+        }
+
+        @Override
+        public String toString() {
+            return "LookupIdleCheck";
+        }
+    }
+
+    /**
+     * Idle check background task for the partitioned stream pool
+     */
+    private final class PoolIdleCheck implements Runnable {
+
+        private final long idleTimeout;
+
+        private PoolIdleCheck(long idleTimeout) {
+            this.idleTimeout = idleTimeout;
+        }
+
+        @Override
+        public void run() {
+            HdfsOutputStreamPool pool = streamPool;
+            if (pool == null) {
+                return;
+            }
+
+            HdfsProducer.this.log.trace("PoolIdleCheck running");
+            closeStreams(pool.removeIdle(idleTimeout));
+        }
+
+        @Override
+        public String toString() {
+            return "PoolIdleCheck";
+        }
+    }
 }
 
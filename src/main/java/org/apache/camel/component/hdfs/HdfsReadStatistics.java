@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.hdfs;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the chunks read with zero-copy, and with a copying read, by the ZERO_COPY chunk type.
+ */
+public final class HdfsReadStatistics {
+
+    private final AtomicLong zeroCopyReads = new AtomicLong();
+    private final AtomicLong zeroCopyBytes = new AtomicLong();
+    private final AtomicLong copyReads = new AtomicLong();
+    private final AtomicLong copyBytes = new AtomicLong();
+
+    void zeroCopy(long bytes) {
+        zeroCopyReads.incrementAndGet();
+        zeroCopyBytes.addAndGet(bytes);
+    }
+
+    void copy(long bytes) {
+        copyReads.incrementAndGet();
+        copyBytes.addAndGet(bytes);
+    }
+
+    public long getZeroCopyReads() {
+        return zeroCopyReads.get();
+    }
+
+    public long getZeroCopyBytes() {
+        return zeroCopyBytes.get();
+    }
+
+    public long getCopyReads() {
+        return copyReads.get();
+    }
+
+    public long getCopyBytes() {
+        return copyBytes.get();
+    }
+
+    public void reset() {
+        zeroCopyReads.set(0);
+        zeroCopyBytes.set(0);
+        copyReads.set(0);
+        copyBytes.set(0);
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.hdfs;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+
+/**
+ * Reads the records of a normal file, as configured by the recordType option, through a buffer of the configured buffer
+ * size, so only the current record is held in memory. A record larger than the maxRecordSize option fails the read, so
+ * a corrupt file does not exhaust the memory.
+ */
+final class HdfsRecordReader {
+
+    private static final int LENGTH_SIZE = 4;
+
+    private final InputStream in;
+    private final String path;
+    private final int maxRecordSize;
+    private final HdfsRecordType recordType;
+    private final byte[] delimiter;
+    private final CharsetDecoder decoder;
+    private final ByteBuffer buffer;
+    private byte[] record = new byte[256];
+    private int recordLength;
+    private long offset;
+
+    HdfsRecordReader(InputStream in, String path, HdfsConfiguration configuration) {
+        this.in = in;
+        this.path = path;
+        this.maxRecordSize = configuration.getMaxRecordSize();
+        this.recordType = configuration.getRecordType();
+        Charset charset = Charset.forName(configuration.getCharset());
+        this.delimiter = recordType == HdfsRecordType.LINE ? new byte[] {'\n'} : recordType == HdfsRecordType.DELIMITED
+                ? configuration.getRecordDelimiter().getBytes(charset) : null;
+        this.decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.buffer = ByteBuffer.allocate(configuration.getBufferSize());
+        this.buffer.flip();
+    }
+
+    /**
+     * Reads the next record: a String for text records, or a byte array for length prefixed records.
+     *
+     * @return the number of bytes read, including the delimiter or length, or -1 at the end of the file
+     */
+    long next(Holder<Object> value) throws IOException {
+        long numBytes = recordType == HdfsRecordType.LENGTH_PREFIXED ? nextLengthPrefixed(value) : nextDelimited(value);
+        if (numBytes > 0) {
+            offset += numBytes;
+        }
+        return numBytes;
+    }
+
+    private long nextDelimited(Holder<Object> value) throws IOException {
+        long numBytes = 0;
+        recordLength = 0;
+        byte last = delimiter[delimiter.length - 1];
+        while (true) {
+            if (!buffer.hasRemaining() && !fill()) {
+                if (numBytes == 0) {
+                    return -1;
+                }
+                // the last record has no delimiter
+                value.value = decode();
+                return numBytes;
+            }
+            byte[] array = buffer.array();
+            int pos = buffer.position();
+            int limit = buffer.limit();
+            while (pos < limit) {
+                byte b = array[pos++];
+                numBytes++;
+                if (recordLength >= (long) maxRecordSize + delimiter.length) {
+                    throw new IOException("Record larger than the maxRecordSize of " + maxRecordSize + " bytes in file " + path + " at offset " + offset);
+                }
+                append(b);
+                if (b == last && endsWithDelimiter()) {
+                    buffer.position(pos);
+                    recordLength -= delimiter.length;
+                    if (recordType == HdfsRecordType.LINE && recordLength > 0 && record[recordLength - 1] == '\r') {
+                        recordLength--;
+                    }
+                    value.value = decode();
+                    return numBytes;
+                }
+            }
+            buffer.position(pos);
+        }
+    }
+
+    private long nextLengthPrefixed(Holder<Object> value) throws IOException {
+        if (!buffer.hasRemaining() && !fill()) {
+            return -1;
+        }
+        byte[] length = new byte[LENGTH_SIZE];
+        readFully(length);
+        int size = ByteBuffer.wrap(length).getInt();
+        if (size < 0 || size > maxRecordSize) {
+            throw new IOException("Invalid record length " + size + " (maxRecordSize is " + maxRecordSize + ") in file " + path + " at offset " + offset);
+        }
+        byte[] bytes = new byte[size];
+        readFully(bytes);
+        value.value = bytes;
+        return LENGTH_SIZE + size;
+    }
+
+    private void readFully(byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining() && !fill()) {
+                throw new EOFException("Truncated record: expected " + bytes.length + " bytes, but the file ends after " + offset);
+            }
+            int count = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.get(bytes, offset, count);
+            offset += count;
+        }
+    }
+
+    private boolean fill() throws IOException {
+        buffer.clear();
+        int bytesRead = in.read(buffer.array(), 0, buffer.capacity());
+        buffer.limit(Math.max(bytesRead, 0));
+        return bytesRead > 0;
+    }
+
+    private void append(byte b) {
+        if (recordLength == record.length) {
+            record = Arrays.copyOf(record, record.length * 2);
+        }
+        record[recordLength++] = b;
+    }
+
+    private boolean endsWithDelimiter() {
+        if (recordLength < delimiter.length) {
+            return false;
+        }
+        for (int i = 0; i < delimiter.length; i++) {
+            if (record[recordLength - delimiter.length + i] != delimiter[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String decode() throws CharacterCodingException {
+        decoder.reset();
+        return decoder.decode(ByteBuffer.wrap(record, 0, recordLength)).toString();
+    }
+}
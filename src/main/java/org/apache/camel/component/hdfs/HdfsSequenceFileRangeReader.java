@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.hdfs;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.camel.RuntimeCamelException;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.BlockLocation;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.SequenceFile;
+
+/**
+ * Reads a sequence file in parallel, split into ranges. Like the map reduce record readers, the reader of a range starts
+ * at the first sync point after the start of the range, and stops at the first sync point after its end, so each record
+ * is read by exactly one reader.
+ * <p/>
+ * The records are handed over through bounded queues: one per range when the records are emitted in the order of the
+ * file, or a single one otherwise.
+ */
+final class HdfsSequenceFileRangeReader implements Closeable {
+
+    private static final int QUEUE_SIZE = 1024;
+    private static final Object END = new Object();
+
+    private final List<BlockingQueue<Object>> queues = new ArrayList<>();
+    private final List<Future<?>> futures = new ArrayList<>();
+    private final int numRanges;
+    private int current;
+    private int ended;
+
+    HdfsSequenceFileRangeReader(Configuration conf, Path path, List<Range> ranges, boolean ordered, ExecutorService executor) {
+        this.numRanges = ranges.size();
+        List<Range> scheduled = new ArrayList<>(ranges);
+        if (ordered) {
+            // the ranges are read in order, so a reader only waits for the queue of a range which is being emptied
+            for (int i = 0; i < numRanges; i++) {
+                queues.add(new ArrayBlockingQueue<>(QUEUE_SIZE));
+            }
+        } else {
+            queues.add(new ArrayBlockingQueue<>(QUEUE_SIZE));
+            // read the ranges with a local replica first
+            scheduled.sort((r1, r2) -> Boolean.compare(r2.isLocal(), r1.isLocal()));
+        }
+        for (Range range : scheduled) {
+            BlockingQueue<Object> queue = ordered ? queues.get(ranges.indexOf(range)) : queues.get(0);
+            futures.add(executor.submit(() -> readRange(conf, path, range, queue)));
+        }
+    }
+
+    /**
+     * Splits the file at its block boundaries.
+     */
+    static List<Range> split(FileSystem fileSystem, FileStatus status) throws IOException {
+        BlockLocation[] blocks = fileSystem.getFileBlockLocations(status, 0, status.getLen());
+        if (blocks == null || blocks.length == 0) {
+            return Collections.singletonList(new Range(0, status.getLen(), false));
+        }
+        String localHost;
+        try {
+            localHost = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            localHost = null;
+        }
+        List<Range> answer = new ArrayList<>(blocks.length);
+        for (BlockLocation block : blocks) {
+            boolean local = localHost != null && Arrays.asList(block.getHosts()).contains(localHost);
+            answer.add(new Range(block.getOffset(), block.getOffset() + block.getLength(), local));
+        }
+        return answer;
+    }
+
+    /**
+     * Waits for the next record.
+     *
+     * @return <tt>false</tt> when all the ranges have been read
+     */
+    boolean next(Holder<Object> key, Holder<Object> value) {
+        try {
+            while (ended < numRanges) {
+                Object item = queues.get(current).take();
+                if (item == END) {
+                    ended++;
+                    if (queues.size() > 1) {
+                        current++;
+                    }
+                } else if (item instanceof Exception) {
+                    throw new RuntimeCamelException((Exception) item);
+                } else {
+                    Object[] record = (Object[]) item;
+                    key.value = record[0];
+                    value.value = record[1];
+                    return true;
+                }
+            }
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeCamelException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Future<?> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    private static void readRange(Configuration conf, Path path, Range range, BlockingQueue<Object> queue) {
+        try {
+            try (SequenceFile.Reader reader = new SequenceFile.Reader(conf, SequenceFile.Reader.file(path))) {
+                if (range.getStart() > reader.getPosition()) {
+                    reader.sync(range.getStart());
+                }
+                HdfsFileType.RecordContext context = new HdfsFileType.RecordContext(reader.getKeyClass(), reader.getValueClass(), conf);
+                while (true) {
+                    long position = reader.getPosition();
+                    if (!reader.next(context.key, context.value) || position >= range.getEnd() && reader.syncSeen()) {
+                        // the record after the first sync point past the end belongs to the next range
+                        break;
+                    }
+                    queue.put(new Object[] {context.readKey(), context.readValue()});
+                }
+            } catch (IOException | RuntimeException e) {
+                queue.put(e);
+                return;
+            }
+            queue.put(END);
+        } catch (InterruptedException e) {
+            // closed before the range has been read
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A range of bytes of the file.
+     */
+    static final class Range {
+        private final long start;
+        private final long end;
+        private final boolean local;
+
+        Range(long start, long end, boolean local) {
+            this.start = start;
+            this.end = end;
+            this.local = local;
+        }
+
+        long getStart() {
+            return start;
+        }
+
+        long getEnd() {
+            return end;
+        }
+
+        /**
+         * Whether a replica of the range is stored on the local host.
+         */
+        boolean isLocal() {
+            return local;
+        }
+    }
+}
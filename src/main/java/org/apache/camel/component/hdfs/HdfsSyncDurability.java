@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.hdfs;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import org.apache.hadoop.fs.Syncable;
+
+public enum HdfsSyncDurability {
+
+    NONE {
+        @Override
+        public void apply(Closeable out) {
+        }
+    },
+
+    HFLUSH {
+        @Override
+        public void apply(Closeable out) throws IOException {
+            if (out instanceof Syncable) {
+                ((Syncable) out).hflush();
+            }
+        }
+    },
+
+    HSYNC {
+        @Override
+        public void apply(Closeable out) throws IOException {
+            if (out instanceof Syncable) {
+                ((Syncable) out).hsync();
+            }
+        }
+    };
+
+    /**
+     * Makes the data written to the given stream durable at this level, if the stream supports it.
+     */
+    public abstract void apply(Closeable out) throws IOException;
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.hdfs;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RawLocalFileSystem;
+import org.apache.hadoop.fs.permission.FsPermission;
+import org.apache.hadoop.util.Progressable;
+
+/**
+ * A local file system registered under the <tt>counting</tt> scheme, which counts the calls the component makes, as a
+ * stand in for the name node round trips of a real HDFS. Calls made internally by the file system itself are not counted.
+ */
+public class CountingFileSystem extends RawLocalFileSystem {
+
+    public static final String SCHEME = "counting";
+
+    private static final AtomicInteger CALLS = new AtomicInteger();
+    private static final ThreadLocal<Boolean> IN_CALL = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    public static int getCalls() {
+        return CALLS.get();
+    }
+
+    public static void resetCalls() {
+        CALLS.set(0);
+    }
+
+    @Override
+    public String getScheme() {
+        return SCHEME;
+    }
+
+    @Override
+    public URI getUri() {
+        return URI.create(SCHEME + ":///");
+    }
+
+    @Override
+    public FSDataOutputStream create(Path f, boolean overwrite, int bufferSize, short replication, long blockSize, Progressable progress) throws IOException {
+        return count(() -> super.create(f, overwrite, bufferSize, replication, blockSize, progress));
+    }
+
+    @Override
+    public FSDataOutputStream append(Path f, int bufferSize, Progressable progress) throws IOException {
+        return count(() -> super.append(f, bufferSize, progress));
+    }
+
+    @Override
+    public FSDataInputStream open(Path f, int bufferSize) throws IOException {
+        return count(() -> super.open(f, bufferSize));
+    }
+
+    @Override
+    public boolean rename(Path src, Path dst) throws IOException {
+        return count(() -> super.rename(src, dst));
+    }
+
+    @Override
+    public boolean delete(Path p, boolean recursive) throws IOException {
+        return count(() -> super.delete(p, recursive));
+    }
+
+    @Override
+    public FileStatus getFileStatus(Path f) throws IOException {
+        return count(() -> super.getFileStatus(f));
+    }
+
+    @Override
+    public FileStatus[] listStatus(Path f) throws IOException {
+        return count(() -> super.listStatus(f));
+    }
+
+    @Override
+    public boolean mkdirs(Path f, FsPermission permission) throws IOException {
+        return count(() -> super.mkdirs(f, permission));
+    }
+
+    private static <T> T count(Call<T> call) throws IOException {
+        if (IN_CALL.get()) {
+            return call.call();
+        }
+        CALLS.incrementAndGet();
+        IN_CALL.set(Boolean.TRUE);
+        try {
+            return call.call();
+        } finally {
+            IN_CALL.set(Boolean.FALSE);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Call<T> {
+        T call() throws IOException;
+    }
+}
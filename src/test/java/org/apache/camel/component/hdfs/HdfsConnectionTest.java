@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.hdfs;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.net.URI;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.junit.After;
+import org.junit.Test;
+
+public class HdfsConnectionTest extends HdfsTestSupport {
+
+    private static final String KERBEROS_5_SYS_ENV = "java.security.krb5.conf";
+
+    private HdfsConnection connection;
+
+    @Override
+    @After
+    public void tearDown() throws Exception {
+        if (connection != null) {
+            connection.close();
+        }
+        System.clearProperty(KERBEROS_5_SYS_ENV);
+        super.tearDown();
+    }
+
+    @Test
+    public void testNoLoginWithoutKerberos() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+
+        connection = new HdfsConnection(new HdfsConfiguration());
+        String path = "file://" + new File("target/test").getAbsolutePath();
+        FileSystem fileSystem = connection.getFileSystem(path);
+        assertSame(fileSystem, connection.getFileSystem(path + "/other"));
+        assertFalse(connection.isLoggedIn());
+
+        // nothing to renew
+        connection.relogin();
+        assertFalse(connection.isLoggedIn());
+    }
+
+    @Test
+    public void testKerberosLoginIsRetriedUntilItSucceeds() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+
+        HdfsConfiguration config = new HdfsConfiguration();
+        String kerberosConfigFile = new File("src/test/resources/kerberos/test-kerb5.conf").getAbsolutePath();
+        String keytab = new File("target/test/missing.keytab").getAbsolutePath();
+        config.parseURI(new URI("hdfs://localhost/tmp?kerberosNamedNodes=node1:8020&kerberosConfigFileLocation=" + kerberosConfigFile
+                + "&kerberosUsername=camel@EXAMPLE.COM&kerberosKeytabLocation=" + keytab));
+        assertTrue(config.isKerberosAuthentication());
+        connection = new HdfsConnection(config);
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                connection.getFileSystem("hdfs://hfdsNamedService/tmp");
+                fail("Should have thrown an exception");
+            } catch (FileNotFoundException e) {
+                assertTrue(e.getMessage().contains(keytab));
+            }
+            // a failed login is not remembered, and there is no ticket to renew
+            assertFalse(connection.isLoggedIn());
+            connection.relogin();
+        }
+    }
+}
@@ -16,22 +16,34 @@
  */
 package org.apache.camel.component.hdfs;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.camel.Exchange;
 import org.apache.camel.Processor;
+import org.apache.camel.builder.NotifyBuilder;
 import org.apache.camel.builder.RouteBuilder;
 import org.apache.camel.component.mock.MockEndpoint;
+import org.apache.camel.spi.Synchronization;
 import org.apache.camel.support.DefaultScheduledPollConsumerScheduler;
+import org.apache.camel.support.UnitOfWorkHelper;
+import org.apache.camel.util.IOHelper;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileSystem;
@@ -111,6 +123,315 @@ public class HdfsConsumerTest extends HdfsTestSupport {
         resultEndpoint.assertIsSatisfied();
     }
 
+    @Test
+    public void testChunkTypeBytes() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+
+        final Path file = new Path(new File("target/test/test-camel-chunk-bytes").getAbsolutePath());
+        Configuration conf = new Configuration();
+        FileSystem fs = FileSystem.get(file.toUri(), conf);
+        FSDataOutputStream out = fs.create(file);
+        out.write(new byte[5000]);
+        out.close();
+
+        MockEndpoint resultEndpoint = context.getEndpoint("mock:result", MockEndpoint.class);
+        resultEndpoint.expectedMessageCount(2);
+
+        context.addRoutes(new RouteBuilder() {
+            public void configure() {
+                from("hdfs:localhost/" + file.toUri() + "?fileSystemType=LOCAL&chunkSize=4096&chunkType=BYTES&initialDelay=0").to("mock:result");
+            }
+        });
+        context.start();
+
+        resultEndpoint.assertIsSatisfied();
+        // the chunks are filled completely, and only the last one is shorter
+        assertEquals(4096, resultEndpoint.getExchanges().get(0).getIn().getBody(byte[].class).length);
+        assertEquals(904, resultEndpoint.getExchanges().get(1).getIn().getBody(byte[].class).length);
+    }
+
+    @Test
+    public void testChunkTypePooledBuffer() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+
+        final Path file = new Path(new File("target/test/test-camel-chunk-pooled").getAbsolutePath());
+        Configuration conf = new Configuration();
+        FileSystem fs = FileSystem.get(file.toUri(), conf);
+        FSDataOutputStream out = fs.create(file);
+        for (int i = 0; i < 1024; ++i) {
+            out.write(("PIPPO" + i).getBytes("UTF-8"));
+        }
+        out.close();
+
+        final StringBuilder content = new StringBuilder();
+        MockEndpoint resultEndpoint = context.getEndpoint("mock:result", MockEndpoint.class);
+        resultEndpoint.expectedMessageCount(2);
+
+        context.addRoutes(new RouteBuilder() {
+            public void configure() {
+                from("hdfs:localhost/" + file.toUri() + "?fileSystemType=LOCAL&chunkSize=4096&chunkType=POOLED_BUFFER&initialDelay=0")
+                    .process(exchange -> {
+                        // the buffer goes back to the pool once the exchange completes, so it is read here
+                        ByteBuffer buffer = exchange.getIn().getBody(ByteBuffer.class);
+                        content.append(new String(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), "UTF-8"));
+                    })
+                    .to("mock:result");
+            }
+        });
+        context.start();
+
+        resultEndpoint.assertIsSatisfied();
+        assertTrue(content.toString().startsWith("PIPPO0PIPPO1"));
+        assertTrue(content.toString().endsWith("PIPPO1022PIPPO1023"));
+    }
+
+    @Test
+    public void testChunkTypeZeroCopyFallsBackToCopy() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+
+        final Path file = new Path(new File("target/test/test-camel-chunk-zero-copy").getAbsolutePath());
+        Configuration conf = new Configuration();
+        FileSystem fs = FileSystem.get(file.toUri(), conf);
+        FSDataOutputStream out = fs.create(file);
+        out.write(new byte[5000]);
+        out.close();
+
+        final AtomicLong length = new AtomicLong();
+
+        context.addRoutes(new RouteBuilder() {
+            public void configure() {
+                from("hdfs:localhost/" + file.toUri() + "?fileSystemType=LOCAL&chunkSize=4096&chunkType=ZERO_COPY&initialDelay=0").routeId("zero-copy")
+                    .process(exchange -> length.addAndGet(exchange.getIn().getBody(ByteBuffer.class).remaining()));
+            }
+        });
+        context.start();
+
+        // the file is marked as read once all its chunks have been processed
+        File read = new File(file.toString() + ".read");
+        for (int i = 0; i < 50 && !read.exists(); i++) {
+            Thread.sleep(100);
+        }
+        assertTrue(read.exists());
+
+        HdfsConsumer consumer = (HdfsConsumer) context.getRoute("zero-copy").getConsumer();
+        // the local file system can not map the blocks, so all the chunks are copied
+        assertEquals(5000, length.get());
+        assertEquals(5000, consumer.getCopyBytes());
+        assertEquals(0, consumer.getZeroCopyReads());
+    }
+
+    @Test
+    public void testChunkTypeZeroCopyKeepsTheFileOpenUntilTheChunksAreReleased() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+
+        final Path file = new Path(new File("target/test/test-camel-chunk-zero-copy-async").getAbsolutePath());
+        Configuration conf = new Configuration();
+        FileSystem fs = FileSystem.get(file.toUri(), conf);
+        FSDataOutputStream out = fs.create(file);
+        out.write(new byte[5000]);
+        out.close();
+
+        // the completions of the exchanges are handed over, as a route continuing asynchronously would do
+        final List<Exchange> exchanges = new CopyOnWriteArrayList<>();
+        final List<List<Synchronization>> completions = new CopyOnWriteArrayList<>();
+        final AtomicLong length = new AtomicLong();
+        context.addRoutes(new RouteBuilder() {
+            public void configure() {
+                from("hdfs:localhost/" + file.toUri() + "?fileSystemType=LOCAL&chunkSize=4096&chunkType=ZERO_COPY&initialDelay=0&delay=100000")
+                    .process(exchange -> {
+                        length.addAndGet(exchange.getIn().getBody(ByteBuffer.class).remaining());
+                        completions.add(exchange.handoverCompletions());
+                        exchanges.add(exchange);
+                    });
+            }
+        });
+        context.start();
+
+        File opened = new File(file.toString() + ".opened");
+        File read = new File(file.toString() + ".read");
+        for (int i = 0; i < 50 && length.get() < 5000; i++) {
+            Thread.sleep(100);
+        }
+        assertEquals(5000, length.get());
+        // the whole file has been read, but the exchanges still hold its chunks
+        Thread.sleep(200);
+        assertTrue(opened.exists());
+        assertFalse(read.exists());
+
+        for (int i = 0; i < exchanges.size(); i++) {
+            assertFalse(read.exists());
+            UnitOfWorkHelper.doneSynchronizations(exchanges.get(i), completions.get(i), log);
+        }
+        assertTrue(read.exists());
+        assertFalse(opened.exists());
+    }
+
+    @Test
+    public void testRecordTypeLine() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+
+        final Path file = new Path(new File("target/test/test-camel-lines").getAbsolutePath());
+        Configuration conf = new Configuration();
+        FileSystem fs = FileSystem.get(file.toUri(), conf);
+        FSDataOutputStream out = fs.create(file);
+        // the lines are longer than the buffer, so they span several reads
+        out.write("first line of the file\r\nsecond line, with \u00e9\n\nlast line without line feed".getBytes("UTF-8"));
+        out.close();
+
+        MockEndpoint resultEndpoint = context.getEndpoint("mock:result", MockEndpoint.class);
+        resultEndpoint.expectedBodiesReceived("first line of the file", "second line, with \u00e9", "", "last line without line feed");
+
+        context.addRoutes(new RouteBuilder() {
+            public void configure() {
+                from("hdfs:localhost/" + file.toUri() + "?fileSystemType=LOCAL&recordType=LINE&bufferSize=8&initialDelay=0").to("mock:result");
+            }
+        });
+        context.start();
+
+        resultEndpoint.assertIsSatisfied();
+    }
+
+    @Test
+    public void testRecordTypeDelimitedWithRecordsPerMessage() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+
+        final Path file = new Path(new File("target/test/test-camel-delimited").getAbsolutePath());
+        Configuration conf = new Configuration();
+        FileSystem fs = FileSystem.get(file.toUri(), conf);
+        FSDataOutputStream out = fs.create(file);
+        out.write("a~~b~~c~~d~~e~~".getBytes("UTF-8"));
+        out.close();
+
+        MockEndpoint resultEndpoint = context.getEndpoint("mock:result", MockEndpoint.class);
+        resultEndpoint.expectedBodiesReceived(Arrays.asList("a", "b"), Arrays.asList("c", "d"), Arrays.asList("e"));
+
+        context.addRoutes(new RouteBuilder() {
+            public void configure() {
+                from("hdfs:localhost/" + file.toUri() + "?fileSystemType=LOCAL&recordType=DELIMITED&recordDelimiter=~~&recordsPerMessage=2&initialDelay=0")
+                    .to("mock:result");
+            }
+        });
+        context.start();
+
+        resultEndpoint.assertIsSatisfied();
+    }
+
+    @Test
+    public void testRecordTypeLengthPrefixed() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+
+        final Path file = new Path(new File("target/test/test-camel-length-prefixed").getAbsolutePath());
+        Configuration conf = new Configuration();
+        FileSystem fs = FileSystem.get(file.toUri(), conf);
+        FSDataOutputStream out = fs.create(file);
+        for (int i = 1; i <= 3; i++) {
+            out.writeInt(i * 10);
+            out.write(new byte[i * 10]);
+        }
+        out.close();
+
+        MockEndpoint resultEndpoint = context.getEndpoint("mock:result", MockEndpoint.class);
+        resultEndpoint.expectedMessageCount(3);
+
+        context.addRoutes(new RouteBuilder() {
+            public void configure() {
+                from("hdfs:localhost/" + file.toUri() + "?fileSystemType=LOCAL&recordType=LENGTH_PREFIXED&bufferSize=16&initialDelay=0").to("mock:result");
+            }
+        });
+        context.start();
+
+        resultEndpoint.assertIsSatisfied();
+        for (int i = 1; i <= 3; i++) {
+            assertEquals(i * 10, resultEndpoint.getExchanges().get(i - 1).getIn().getBody(byte[].class).length);
+        }
+    }
+
+    @Test
+    public void testRecordLargerThanMaxRecordSizeFailsTheRead() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+
+        HdfsConfiguration config = new HdfsConfiguration();
+        config.setRecordType(HdfsRecordType.LENGTH_PREFIXED);
+        config.setMaxRecordSize(100);
+        ByteBuffer records = ByteBuffer.allocate(4 + 10 + 4);
+        records.putInt(10).put(new byte[10]).putInt(Integer.MAX_VALUE);
+        HdfsRecordReader reader = new HdfsRecordReader(new ByteArrayInputStream(records.array()), "corrupt.bin", config);
+
+        Holder<Object> value = new Holder<>();
+        assertEquals(14, reader.next(value));
+        try {
+            reader.next(value);
+            fail("Should have thrown an exception");
+        } catch (IOException e) {
+            // the record is not allocated, and the error tells where the file is corrupt
+            assertTrue(e.getMessage(), e.getMessage().contains("corrupt.bin at offset 14"));
+        }
+
+        config.setRecordType(HdfsRecordType.LINE);
+        config.setMaxRecordSize(5);
+        reader = new HdfsRecordReader(new ByteArrayInputStream("short\nmuch too long\n".getBytes()), "long.txt", config);
+        assertEquals(6, reader.next(value));
+        assertEquals("short", value.value);
+        try {
+            reader.next(value);
+            fail("Should have thrown an exception");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("long.txt at offset 6"));
+        }
+    }
+
+    @Test
+    public void testStreamDownload() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+
+        final File dir = new File("target/test/stream-download");
+        dir.mkdirs();
+        final Path file = new Path(new File(dir, "large.bin").getAbsolutePath());
+        Configuration conf = new Configuration();
+        FileSystem fs = FileSystem.get(file.toUri(), conf);
+        FSDataOutputStream out = fs.create(file);
+        out.write(new byte[100000]);
+        out.close();
+
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        MockEndpoint resultEndpoint = context.getEndpoint("mock:result", MockEndpoint.class);
+        resultEndpoint.expectedMessageCount(1);
+        NotifyBuilder notify = new NotifyBuilder(context).whenDone(1).create();
+
+        context.addRoutes(new RouteBuilder() {
+            public void configure() {
+                from("hdfs:localhost/" + file.toUri() + "?fileSystemType=LOCAL&chunkSize=4096&streamDownload=true&initialDelay=0")
+                    .process(exchange -> IOHelper.copy(exchange.getIn().getBody(InputStream.class), content))
+                    .to("mock:result");
+            }
+        });
+        context.start();
+
+        resultEndpoint.assertIsSatisfied();
+        assertTrue(notify.matches(5, TimeUnit.SECONDS));
+        // a single message streaming the whole file, which is marked as read once the exchange completes
+        assertEquals(100000, content.size());
+        assertTrue(new File(dir, "large.bin.read").exists());
+    }
+
     @Test
     public void testConcurrentConsumers() throws Exception {
         if (!canTest()) {
@@ -155,6 +476,352 @@ public class HdfsConsumerTest extends HdfsTestSupport {
         assertThat(fileNames.size(), equalTo(ITERATIONS));
     }
 
+    @Test
+    public void testConcurrentFiles() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+
+        final File rootdir = new File(".");
+        final File dir = new File("target/test/concurrent-files");
+        dir.mkdirs();
+        for (int i = 1; i <= ITERATIONS; i++) {
+            FileOutputStream fos = new FileOutputStream(new File(dir, String.format("file-%04d.txt", i)));
+            fos.write(String.format("hello (%04d)\n", i).getBytes());
+            fos.close();
+        }
+
+        final Set<String> fileNames = ConcurrentHashMap.newKeySet();
+        MockEndpoint resultEndpoint = context.getEndpoint("mock:result", MockEndpoint.class);
+        resultEndpoint.whenAnyExchangeReceived(new Processor() {
+            @Override
+            public void process(Exchange exchange) throws Exception {
+                fileNames.add(exchange.getIn().getHeader(Exchange.FILE_NAME, String.class));
+            }
+        });
+
+        context.addRoutes(new RouteBuilder() {
+            public void configure() {
+                from("hdfs://" + rootdir.toURI() + "/target/test/concurrent-files?pattern=*.txt&fileSystemType=LOCAL&concurrentFiles=4&initialDelay=0").to("mock:result");
+            }
+        });
+        context.start();
+
+        resultEndpoint.expectedMessageCount(ITERATIONS);
+        resultEndpoint.assertIsSatisfied();
+        assertThat(fileNames.size(), equalTo(ITERATIONS));
+    }
+
+    @Test
+    public void testPrefetchFiles() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+
+        final File rootdir = new File(".");
+        final File dir = new File("target/test/prefetch-files");
+        dir.mkdirs();
+        for (int i = 1; i <= 10; i++) {
+            FileOutputStream fos = new FileOutputStream(new File(dir, String.format("file-%04d.txt", i)));
+            fos.write(String.format("hello (%04d)\n", i).getBytes());
+            fos.close();
+        }
+
+        MockEndpoint resultEndpoint = context.getEndpoint("mock:result", MockEndpoint.class);
+        resultEndpoint.expectedMessageCount(10);
+        // the files are still processed in the order of the listing
+        for (int i = 1; i <= 10; i++) {
+            resultEndpoint.message(i - 1).header(Exchange.FILE_NAME).isEqualTo(String.format("file-%04d.txt", i));
+        }
+
+        context.addRoutes(new RouteBuilder() {
+            public void configure() {
+                from("hdfs://" + rootdir.toURI() + "/target/test/prefetch-files?pattern=*.txt&fileSystemType=LOCAL&prefetchFiles=3&initialDelay=0").to("mock:result");
+            }
+        });
+        context.start();
+
+        resultEndpoint.assertIsSatisfied();
+    }
+
+    @Test
+    public void testPrefetchFilesOpensTheConfiguredNumberOfFilesAhead() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+
+        final File rootdir = new File(".");
+        final File dir = new File("target/test/prefetch-files-ahead");
+        dir.mkdirs();
+        for (int i = 1; i <= 6; i++) {
+            FileOutputStream fos = new FileOutputStream(new File(dir, String.format("file-%04d.txt", i)));
+            fos.write(String.format("hello (%04d)\n", i).getBytes());
+            fos.close();
+        }
+
+        // the files claimed while the first file is processed: the first file and the two files opened ahead
+        final AtomicInteger opened = new AtomicInteger(-1);
+        MockEndpoint resultEndpoint = context.getEndpoint("mock:result", MockEndpoint.class);
+        resultEndpoint.expectedMessageCount(6);
+        resultEndpoint.whenExchangeReceived(1, new Processor() {
+            @Override
+            public void process(Exchange exchange) throws Exception {
+                long timeout = System.currentTimeMillis() + 5000;
+                while (countOpenedFiles(dir) < 3 && System.currentTimeMillis() < timeout) {
+                    Thread.sleep(10);
+                }
+                // give a file opened too many the time to show up
+                Thread.sleep(500);
+                opened.set(countOpenedFiles(dir));
+            }
+        });
+
+        context.addRoutes(new RouteBuilder() {
+            public void configure() {
+                from("hdfs://" + rootdir.toURI() + "/target/test/prefetch-files-ahead?pattern=*.txt&fileSystemType=LOCAL&prefetchFiles=2&initialDelay=0").to("mock:result");
+            }
+        });
+        context.start();
+
+        resultEndpoint.assertIsSatisfied();
+        assertThat(opened.get(), equalTo(3));
+    }
+
+    private static int countOpenedFiles(File dir) {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(".txt.opened"));
+        return files == null ? 0 : files.length;
+    }
+
+    @Test
+    public void testIncrementalListingWithMaxFilesPerPoll() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+
+        final File rootdir = new File(".");
+        final File dir = new File("target/test/incremental-listing");
+        dir.mkdirs();
+        for (int i = 1; i <= 20; i++) {
+            FileOutputStream fos = new FileOutputStream(new File(dir, String.format("file-%04d.txt", i)));
+            fos.write(String.format("hello (%04d)\n", i).getBytes());
+            fos.close();
+        }
+        new File(dir, "not-matching.dat").createNewFile();
+
+        MockEndpoint resultEndpoint = context.getEndpoint("mock:result", MockEndpoint.class);
+        resultEndpoint.expectedMessageCount(20);
+
+        context.addRoutes(new RouteBuilder() {
+            public void configure() {
+                from("hdfs://" + rootdir.toURI() + "/target/test/incremental-listing?pattern=*.txt&fileSystemType=LOCAL&incrementalListing=true&maxFilesPerPoll=5"
+                        + "&initialDelay=0&delay=10").to("mock:result");
+            }
+        });
+        context.start();
+
+        resultEndpoint.assertIsSatisfied();
+        assertTrue(new File(dir, "not-matching.dat").exists());
+    }
+
+    @Test
+    public void testProcessedFileDirectoryLeavesFilesInPlace() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+
+        final File rootdir = new File(".");
+        final File dir = new File("target/test/processed-files");
+        final File index = new File("target/test/processed-files-index");
+        dir.mkdirs();
+        for (int i = 1; i <= 5; i++) {
+            FileOutputStream fos = new FileOutputStream(new File(dir, String.format("file-%04d.txt", i)));
+            fos.write(String.format("hello (%04d)\n", i).getBytes());
+            fos.close();
+        }
+
+        MockEndpoint resultEndpoint = context.getEndpoint("mock:result", MockEndpoint.class);
+        resultEndpoint.expectedMessageCount(5);
+        // the files are polled again, but not consumed again
+        resultEndpoint.setAssertPeriod(500);
+
+        context.addRoutes(new RouteBuilder() {
+            public void configure() {
+                from("hdfs://" + rootdir.toURI() + "/target/test/processed-files?pattern=*.txt&fileSystemType=LOCAL&processedFileDirectory=" + index.toURI()
+                        + "&initialDelay=0&delay=10").to("mock:result");
+            }
+        });
+        context.start();
+
+        resultEndpoint.assertIsSatisfied();
+        for (int i = 1; i <= 5; i++) {
+            assertTrue(new File(dir, String.format("file-%04d.txt", i)).exists());
+            assertFalse(new File(dir, String.format("file-%04d.txt.read", i)).exists());
+        }
+
+        context.stop();
+
+        // the consumed files are remembered by the log, with a fingerprint of 8 bytes each
+        File[] logs = index.listFiles((d, name) -> name.endsWith(".processed"));
+        assertEquals(1, logs.length);
+        assertEquals(5 * 8, logs[0].length());
+    }
+
+    @Test
+    public void testStatusFiltersLeaveFilesUntouched() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+
+        final File rootdir = new File(".");
+        final File dir = new File("target/test/status-filters");
+        dir.mkdirs();
+        new File(dir, "empty.txt").createNewFile();
+        FileOutputStream fos = new FileOutputStream(new File(dir, "small.txt"));
+        fos.write(new byte[10]);
+        fos.close();
+        fos = new FileOutputStream(new File(dir, "large.txt"));
+        fos.write(new byte[1000]);
+        fos.close();
+        fos = new FileOutputStream(new File(dir, "old.txt"));
+        fos.write(new byte[10]);
+        fos.close();
+        new File(dir, "old.txt").setLastModified(System.currentTimeMillis() - 3600 * 1000L);
+
+        MockEndpoint resultEndpoint = context.getEndpoint("mock:result", MockEndpoint.class);
+        resultEndpoint.expectedMessageCount(1);
+        resultEndpoint.expectedHeaderReceived(Exchange.FILE_NAME, "small.txt");
+        resultEndpoint.setAssertPeriod(500);
+
+        context.addRoutes(new RouteBuilder() {
+            public void configure() {
+                from("hdfs://" + rootdir.toURI() + "/target/test/status-filters?pattern=*.txt&fileSystemType=LOCAL&excludeEmptyFiles=true&maxFileSize=500"
+                        + "&maxAge=60000&initialDelay=0&delay=10").to("mock:result");
+            }
+        });
+        context.start();
+
+        resultEndpoint.assertIsSatisfied();
+        // the filtered files are not even renamed
+        assertTrue(new File(dir, "empty.txt").exists());
+        assertTrue(new File(dir, "large.txt").exists());
+        assertTrue(new File(dir, "old.txt").exists());
+    }
+
+    @Test
+    public void testBatchConsumerWithMaxMessagesPerPoll() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+
+        final Path file = new Path(new File("target/test/test-camel-batch-file").getAbsolutePath());
+        Configuration conf = new Configuration();
+        FileSystem fs = FileSystem.get(file.toUri(), conf);
+        FSDataOutputStream out = fs.create(file);
+        for (int i = 0; i < 10; ++i) {
+            out.write(("PIPO" + i).getBytes("UTF-8"));
+        }
+        out.close();
+
+        MockEndpoint resultEndpoint = context.getEndpoint("mock:result", MockEndpoint.class);
+        resultEndpoint.expectedMessageCount(10);
+
+        context.addRoutes(new RouteBuilder() {
+            public void configure() {
+                from("hdfs:localhost/" + file.toUri() + "?fileSystemType=LOCAL&chunkSize=5&maxMessagesPerPoll=4&initialDelay=0&delay=10").to("mock:result");
+            }
+        });
+        context.start();
+
+        resultEndpoint.assertIsSatisfied();
+
+        // the file is consumed by three polls of 4, 4 and 2 messages
+        StringBuilder content = new StringBuilder();
+        int completed = 0;
+        for (Exchange exchange : resultEndpoint.getReceivedExchanges()) {
+            content.append(exchange.getIn().getBody(String.class));
+            if (exchange.getProperty(Exchange.BATCH_COMPLETE, Boolean.class)) {
+                completed++;
+            }
+        }
+        assertEquals("PIPO0PIPO1PIPO2PIPO3PIPO4PIPO5PIPO6PIPO7PIPO8PIPO9", content.toString());
+        assertEquals(3, completed);
+        assertEquals(2, resultEndpoint.getReceivedExchanges().get(9).getProperty(Exchange.BATCH_SIZE));
+    }
+
+    @Test
+    public void testResumeOpenedFileFromCheckpoint() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+
+        final File rootdir = new File(".");
+        final File dir = new File("target/test/checkpoint-files");
+        final File checkpoints = new File("target/test/checkpoints");
+        dir.mkdirs();
+
+        // a file left opened by a consumer which stopped after the first 10 bytes
+        FileOutputStream fos = new FileOutputStream(new File(dir, "file.txt.opened"));
+        fos.write("0123456789ABCDEFGHIJ".getBytes());
+        fos.close();
+        // and a file a producer is still writing, which has no checkpoint
+        fos = new FileOutputStream(new File(dir, "writing.txt.opened"));
+        fos.write("PARTIAL".getBytes());
+        fos.close();
+        Path file = FileSystem.getLocal(new Configuration()).makeQualified(new Path(new File(dir, "file.txt").getAbsolutePath()));
+        new HdfsFileCheckpointStore(checkpoints.toURI().toString()).save(file.toString(), 10);
+
+        MockEndpoint resultEndpoint = context.getEndpoint("mock:result", MockEndpoint.class);
+        resultEndpoint.expectedMessageCount(1);
+
+        context.addRoutes(new RouteBuilder() {
+            public void configure() {
+                from("hdfs://" + rootdir.toURI() + "/target/test/checkpoint-files?pattern=*.txt&fileSystemType=LOCAL&initialDelay=0&checkpointDirectory="
+                        + checkpoints.toURI()).to("mock:result");
+            }
+        });
+        context.start();
+
+        resultEndpoint.assertIsSatisfied();
+        assertEquals("ABCDEFGHIJ", resultEndpoint.getReceivedExchanges().get(0).getIn().getBody(String.class));
+        assertTrue(new File(dir, "writing.txt.opened").exists());
+        assertFalse(new File(dir, "writing.txt").exists());
+    }
+
+    @Test
+    public void testReadDirectoryOfPartFiles() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+
+        final File rootdir = new File(".");
+        final File dir = new File("target/test/part-files/output");
+        dir.mkdirs();
+        for (int i = 2; i >= 0; i--) {
+            FileOutputStream fos = new FileOutputStream(new File(dir, String.format("part-%05d", i)));
+            fos.write(("PART" + i).getBytes());
+            fos.close();
+        }
+        new File(dir, "_SUCCESS").createNewFile();
+
+        MockEndpoint resultEndpoint = context.getEndpoint("mock:result", MockEndpoint.class);
+        // a chunk never spans two part files
+        resultEndpoint.expectedMessageCount(3);
+
+        context.addRoutes(new RouteBuilder() {
+            public void configure() {
+                from("hdfs://" + rootdir.toURI() + "/target/test/part-files?fileSystemType=LOCAL&streamingRead=true&readAhead=65536&initialDelay=0").to("mock:result");
+            }
+        });
+        context.start();
+
+        resultEndpoint.assertIsSatisfied();
+        StringBuilder content = new StringBuilder();
+        for (Exchange exchange : resultEndpoint.getReceivedExchanges()) {
+            content.append(exchange.getIn().getBody(String.class));
+        }
+        assertEquals("PART0PART1PART2", content.toString());
+    }
+
     @Test
     public void testSimpleConsumerWithEmptyFile() throws Exception {
         if (!canTest()) {
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.hdfs;
+
+import java.io.File;
+
+import org.apache.camel.util.FileUtil;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HdfsFileProcessedFileStoreTest extends HdfsTestSupport {
+
+    private static final File DIR = new File("target/test/processed-file-store");
+
+    private FileSystem fileSystem;
+    private HdfsFileProcessedFileStore store;
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+        super.setUp();
+        FileUtil.removeDir(DIR);
+        fileSystem = FileSystem.getLocal(new Configuration());
+    }
+
+    @Override
+    @After
+    public void tearDown() throws Exception {
+        if (store != null) {
+            store.close();
+        }
+        super.tearDown();
+    }
+
+    @Test
+    public void testMemoryAndLogsStayBounded() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+
+        store = new HdfsFileProcessedFileStore(DIR.toURI().toString(), fileSystem, 10);
+        for (int i = 0; i < 100; i++) {
+            store.add("file-" + i);
+            assertTrue(store.size() <= 10);
+            assertTrue(logsLength() <= 10 * 8);
+        }
+
+        // the oldest files are forgotten, the newest ones are remembered
+        assertFalse(store.contains("file-0"));
+        assertTrue(store.contains("file-99"));
+        assertTrue(DIR.listFiles((d, name) -> name.endsWith(".processed")).length <= 2);
+
+        // and still after a restart
+        store.close();
+        store = new HdfsFileProcessedFileStore(DIR.toURI().toString(), fileSystem, 10);
+        assertTrue(store.size() <= 10);
+        assertTrue(logsLength() <= 10 * 8);
+        assertFalse(store.contains("file-0"));
+        assertTrue(store.contains("file-99"));
+    }
+
+    @Test
+    public void testListedFilesAreNotForgotten() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+
+        store = new HdfsFileProcessedFileStore(DIR.toURI().toString(), fileSystem, 10);
+        store.add("listed");
+        for (int i = 0; i < 100; i++) {
+            store.add("file-" + i);
+            // the file is checked by every poll, as it is left in the directory
+            assertTrue(store.contains("listed"));
+        }
+        assertTrue(store.size() <= 10);
+    }
+
+    private long logsLength() {
+        long length = 0;
+        for (File log : DIR.listFiles((d, name) -> name.endsWith(".processed"))) {
+            length += log.length();
+        }
+        return length;
+    }
+}
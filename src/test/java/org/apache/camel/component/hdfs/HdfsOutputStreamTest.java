@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.hdfs;
+
+import java.io.File;
+
+import org.apache.camel.RuntimeCamelException;
+import org.apache.camel.util.FileUtil;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HdfsOutputStreamTest extends HdfsTestSupport {
+
+    private static final File BASE_DIR = new File("target/test/output-stream").getAbsoluteFile();
+
+    private HdfsConfiguration config;
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+        super.setUp();
+
+        FileUtil.removeDir(BASE_DIR);
+        BASE_DIR.mkdirs();
+        config = new HdfsConfiguration();
+    }
+
+    @Test
+    public void testCreateAndCloseUsesCreateAndRenameOnly() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+
+        CountingFileSystem.resetCalls();
+        writeFile("new.txt");
+
+        // a create and the rename on close
+        assertEquals(2, CountingFileSystem.getCalls());
+        assertTrue(new File(BASE_DIR, "new.txt").exists());
+        assertFalse(new File(BASE_DIR, "new.txt.opened").exists());
+    }
+
+    @Test
+    public void testOverwriteDoesNotCheckExistingFile() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+
+        writeFile("existing.txt");
+
+        CountingFileSystem.resetCalls();
+        writeFile("existing.txt");
+
+        assertEquals(2, CountingFileSystem.getCalls());
+        assertTrue(new File(BASE_DIR, "existing.txt").exists());
+    }
+
+    @Test
+    public void testNoOverwriteChecksExistingFileOnce() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+
+        config.setOverwrite(false);
+        CountingFileSystem.resetCalls();
+        writeFile("no-overwrite.txt");
+
+        // a status check, a create and the rename on close
+        assertEquals(3, CountingFileSystem.getCalls());
+
+        try {
+            writeFile("no-overwrite.txt");
+            fail("Should have thrown an exception");
+        } catch (RuntimeCamelException e) {
+            assertEquals("The file already exists", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testAppendRenamesWithoutExistenceCheck() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+
+        config.setAppend(true);
+        CountingFileSystem.resetCalls();
+        writeFile("append.txt");
+
+        // the rename of a missing file, a create and the rename on close
+        assertEquals(3, CountingFileSystem.getCalls());
+        assertFalse(config.isAppend());
+    }
+
+    @Test
+    public void testStreamsShareTheFileSystemOfTheConnection() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+
+        HdfsConnection connection = new HdfsConnection(config);
+        config.setConnection(connection);
+        String dir = CountingFileSystem.SCHEME + "://" + BASE_DIR.getPath();
+        HdfsInfo first = HdfsInfoFactory.newHdfsInfo(dir + "/first.txt", config);
+        HdfsInfo second = HdfsInfoFactory.newHdfsInfo(dir + "/second.txt", config);
+        assertSame(first.getConf(), second.getConf());
+        assertSame(first.getFileSystem(), second.getFileSystem());
+
+        CountingFileSystem.resetCalls();
+        writeFile("shared.txt");
+        assertEquals(2, CountingFileSystem.getCalls());
+        assertTrue(new File(BASE_DIR, "shared.txt").exists());
+
+        // a closed connection connects again on its next use
+        connection.close();
+        HdfsInfo third = HdfsInfoFactory.newHdfsInfo(dir + "/third.txt", config);
+        assertNotSame(first.getFileSystem(), third.getFileSystem());
+        connection.close();
+    }
+
+    private void writeFile(String name) throws Exception {
+        String path = CountingFileSystem.SCHEME + "://" + new File(BASE_DIR, name).getPath();
+        HdfsOutputStream ostream = HdfsOutputStream.createOutputStream(path, config);
+        ostream.append(null, "CIAO", context.getTypeConverter());
+        ostream.close();
+    }
+}
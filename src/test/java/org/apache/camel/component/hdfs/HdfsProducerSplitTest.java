@@ -85,6 +85,59 @@ public class HdfsProducerSplitTest extends HdfsTestSupport {
         doTest(5);
     }
 
+    @Test
+    public void testSimpleWriteFileWithIntervalSplit() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+
+        for (int i = 0; i < 3; ++i) {
+            template.sendBody("direct:start6", "CIAO" + i);
+            Thread.sleep(1100);
+        }
+
+        // stop Camel to flush and close file stream
+        stopCamelContext();
+
+        // each interval has its own directory with a single file
+        FileSystem fs = FileSystem.get(new Configuration());
+        FileStatus[] dirs = fs.listStatus(new Path("file:///" + BASE_FILE.toUri() + "6"));
+        assertEquals(3, dirs.length);
+        for (FileStatus dir : dirs) {
+            assertTrue(dir.isDirectory());
+            FileStatus[] status = fs.listStatus(dir.getPath());
+            assertEquals(1, status.length);
+            BufferedReader br = new BufferedReader(new InputStreamReader(fs.open(status[0].getPath())));
+            assertTrue(br.readLine().startsWith("CIAO"));
+            assertNull(br.readLine());
+        }
+    }
+
+    @Test
+    public void testSimpleWriteFileWithPreOpenedMessageSplit() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+
+        for (int i = 0; i < 20; ++i) {
+            template.sendBody("direct:start7", "CIAO" + i);
+        }
+        stopCamelContext();
+
+        // the file pre-opened after the last split is removed on stop
+        FileSystem fs = FileSystem.get(new Configuration());
+        FileStatus[] status = fs.listStatus(new Path("file:///" + BASE_FILE.toUri() + "7"));
+        assertEquals(4, status.length);
+        for (FileStatus fileStatus : status) {
+            assertFalse(fileStatus.getPath().getName().endsWith(".opened"));
+            BufferedReader br = new BufferedReader(new InputStreamReader(fs.open(fileStatus.getPath())));
+            for (int i = 0; i < 5; i++) {
+                assertTrue(br.readLine().startsWith("CIAO"));
+            }
+            assertNull(br.readLine());
+        }
+    }
+
     private void doTest(int routeNr) throws Exception {
         if (!canTest()) {
             return;
@@ -130,6 +183,8 @@ public class HdfsProducerSplitTest extends HdfsTestSupport {
                 from("direct:start3").to("hdfs:localhost/" + BASE_FILE.toUri() + "3?fileSystemType=LOCAL&splitStrategy=IDLE:1000");
                 from("direct:start4").to("hdfs:localhost/" + BASE_FILE.toUri() + "4?fileSystemType=LOCAL&splitStrategy=IDLE:1000,MESSAGES:1");
                 from("direct:start5").to("hdfs:localhost/" + BASE_FILE.toUri() + "5?fileSystemType=LOCAL&splitStrategy=IDLE:1000,BYTES:5");
+                from("direct:start6").to("hdfs:localhost/" + BASE_FILE.toUri() + "6?fileSystemType=LOCAL&connectOnStartup=false&splitStrategy=INTERVAL:1000&splitDirectoryPattern=yyyyMMddHHmmss");
+                from("direct:start7").to("hdfs:localhost/" + BASE_FILE.toUri() + "7?fileSystemType=LOCAL&splitStrategy=IDLE:60000,MESSAGES:5&preOpenNextFile=true");
             }
         };
     }
@@ -15,11 +15,23 @@
  * limitations under the License.
  */
 package org.apache.camel.component.hdfs;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.InputStream;
 import java.net.URL;
-
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.camel.AsyncCallback;
 import org.apache.camel.Exchange;
 import org.apache.camel.builder.RouteBuilder;
 import org.apache.camel.util.IOHelper;
@@ -30,6 +42,7 @@ import org.apache.hadoop.io.ArrayFile;
 import org.apache.hadoop.io.BloomMapFile;
 import org.apache.hadoop.io.BooleanWritable;
 import org.apache.hadoop.io.ByteWritable;
+import org.apache.hadoop.io.BytesWritable;
 import org.apache.hadoop.io.DoubleWritable;
 import org.apache.hadoop.io.FloatWritable;
 import org.apache.hadoop.io.IOUtils;
@@ -103,6 +116,159 @@ public class HdfsProducerTest extends HdfsTestSupport {
         IOHelper.close(reader);
     }
 
+    @Test
+    public void testProducerWithGroupCommitWriter() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+        for (int i = 0; i < 10; ++i) {
+            // send 10 messages, and mark to close in last message
+            template.sendBodyAndHeader("direct:write_group_commit", "PAPPO" + i, HdfsConstants.HDFS_CLOSE, i == 9 ? true : false);
+        }
+
+        Configuration conf = new Configuration();
+        Path file1 = new Path("file:///" + TEMP_DIR.toUri() + "/test-camel-group-commit");
+        SequenceFile.Reader reader = new SequenceFile.Reader(conf, SequenceFile.Reader.file(file1));
+        Writable key = (Writable) ReflectionUtils.newInstance(reader.getKeyClass(), conf);
+        Writable value = (Writable) ReflectionUtils.newInstance(reader.getValueClass(), conf);
+
+        int i = 0;
+        while (reader.next(key, value)) {
+            Text txt = (Text) value;
+            assertEquals("PAPPO" + i, txt.toString());
+            ++i;
+        }
+        assertEquals(10, i);
+
+        IOHelper.close(reader);
+    }
+
+    @Test
+    public void testGroupCommitWriterCompletesTheGroupAsynchronouslyWithOneFlush() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+        HdfsEndpoint endpoint = context.getEndpoint("hdfs://localhost/" + TEMP_DIR.toUri() + "/test-camel-group-commit-async?fileSystemType=LOCAL&valueType=BYTES"
+                + "&fileType=SEQUENCE_FILE&writerQueueSize=10", HdfsEndpoint.class);
+        HdfsProducer producer = (HdfsProducer) endpoint.createProducer();
+        producer.start();
+
+        final Thread testThread = Thread.currentThread();
+        final List<Boolean> completions = new CopyOnWriteArrayList<>();
+        final CountDownLatch done = new CountDownLatch(10);
+        AsyncCallback callback = new AsyncCallback() {
+            @Override
+            public void done(boolean doneSync) {
+                // completed by the writer thread
+                completions.add(doneSync || Thread.currentThread() == testThread);
+                done.countDown();
+            }
+        };
+
+        // the writer is held by the body of the first exchange, so the next exchanges are queued and committed as one group
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        List<Exchange> exchanges = new ArrayList<>();
+        try {
+            for (int i = 0; i < 10; ++i) {
+                Exchange exchange = endpoint.createExchange();
+                byte[] body = ("PAPPO" + i).getBytes();
+                if (i == 0) {
+                    exchange.getIn().setBody(new ByteArrayInputStream(body) {
+                        @Override
+                        public synchronized int read(byte[] b, int off, int len) {
+                            writing.countDown();
+                            try {
+                                release.await(5, TimeUnit.SECONDS);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                            return super.read(b, off, len);
+                        }
+                    });
+                } else {
+                    exchange.getIn().setBody(new ByteArrayInputStream(body));
+                }
+                exchange.getIn().setHeader(HdfsConstants.HDFS_CLOSE, i == 9);
+                exchanges.add(exchange);
+
+                assertFalse(producer.process(exchange, callback));
+                if (i == 0) {
+                    assertTrue(writing.await(5, TimeUnit.SECONDS));
+                }
+            }
+            release.countDown();
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            producer.stop();
+        }
+
+        assertEquals(10, completions.size());
+        assertFalse(completions.contains(Boolean.TRUE));
+        for (Exchange exchange : exchanges) {
+            assertNull(exchange.getException());
+        }
+
+        Configuration conf = new Configuration();
+        Path file1 = new Path("file:///" + TEMP_DIR.toUri() + "/test-camel-group-commit-async");
+        SequenceFile.Reader reader = new SequenceFile.Reader(conf, SequenceFile.Reader.file(file1));
+        Writable key = (Writable) ReflectionUtils.newInstance(reader.getKeyClass(), conf);
+        BytesWritable value = (BytesWritable) ReflectionUtils.newInstance(reader.getValueClass(), conf);
+
+        // a group is flushed once, with a single sync point, which is seen before the first record of the next group
+        int i = 0;
+        int syncs = 0;
+        while (reader.next(key, value)) {
+            assertEquals("PAPPO" + i, new String(value.copyBytes()));
+            if (reader.syncSeen()) {
+                syncs++;
+            }
+            ++i;
+        }
+        assertEquals(10, i);
+        assertEquals(1, syncs);
+
+        IOHelper.close(reader);
+    }
+
+    @Test
+    public void testProducerWithSyncPolicy() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+        for (int i = 0; i < 10; ++i) {
+            // send 10 messages, and mark to close in last message
+            template.sendBodyAndHeader("direct:write_sync_policy", "PAPPO" + i, HdfsConstants.HDFS_CLOSE, i == 9 ? true : false);
+        }
+
+        Configuration conf = new Configuration();
+        Path file1 = new Path("file:///" + TEMP_DIR.toUri() + "/test-camel-sync-policy");
+        SequenceFile.Reader reader = new SequenceFile.Reader(conf, SequenceFile.Reader.file(file1));
+        assertEquals(SequenceFile.CompressionType.BLOCK, reader.getCompressionType());
+        Writable key = (Writable) ReflectionUtils.newInstance(reader.getKeyClass(), conf);
+        Writable value = (Writable) ReflectionUtils.newInstance(reader.getValueClass(), conf);
+
+        // with BLOCK compression every sync writes a block, which the reader reads at once with its first record
+        int i = 0;
+        int blocks = 0;
+        long position = reader.getPosition();
+        while (reader.next(key, value)) {
+            Text txt = (Text) value;
+            assertEquals("PAPPO" + i, txt.toString());
+            if (reader.getPosition() != position) {
+                position = reader.getPosition();
+                blocks++;
+            }
+            ++i;
+        }
+        assertEquals(10, i);
+        // synced after the 4th and the 8th records, and the last 2 records written on close
+        assertEquals(3, blocks);
+
+        IOHelper.close(reader);
+    }
+
     @Test
     public void testWriteBoolean() throws Exception {
         if (!canTest()) {
@@ -323,6 +489,87 @@ public class HdfsProducerTest extends HdfsTestSupport {
         IOHelper.close(reader);
     }
 
+    @Test
+    public void testMapFileLookup() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+        Configuration conf = new Configuration();
+        Path file = new Path("file:///" + TEMP_DIR.toUri() + "/test-camel-lookup");
+        FileSystem.get(file.toUri(), conf).delete(file, true);
+        MapFile.Writer writer = new MapFile.Writer(conf, file, MapFile.Writer.keyClass(LongWritable.class), SequenceFile.Writer.valueClass(Text.class));
+        for (long i = 0; i < 1000; i++) {
+            writer.append(new LongWritable(i), new Text("value-" + i));
+        }
+        IOHelper.close(writer);
+
+        // the keys are converted to the key type of the map file
+        assertEquals("value-42", template.requestBodyAndHeader("direct:lookup", null, "KEY", "42"));
+        assertEquals("value-999", template.requestBodyAndHeader("direct:lookup", null, "KEY", 999));
+        assertEquals("value-7", template.requestBody("direct:lookup", 7L));
+        assertNull(template.requestBodyAndHeader("direct:lookup", "BODY", "KEY", 1000L));
+    }
+
+    @Test
+    public void testBloomMapFileLookupOfSegments() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+        Configuration conf = new Configuration();
+        Path dir = new Path("file:///" + TEMP_DIR.toUri() + "/test-camel-lookup-segments");
+        FileSystem fs = FileSystem.get(dir.toUri(), conf);
+        fs.delete(dir, true);
+        for (int segment = 0; segment < 2; segment++) {
+            Path file = new Path(dir, "seg" + segment);
+            BloomMapFile.Writer writer = new BloomMapFile.Writer(conf, file, MapFile.Writer.keyClass(Text.class), SequenceFile.Writer.valueClass(Text.class));
+            for (int i = segment * 10; i < segment * 10 + 20; i++) {
+                writer.append(new Text(String.format("key-%03d", i)), new Text("seg" + segment + "-" + i));
+            }
+            IOHelper.close(writer);
+            fs.setTimes(file, 1000L * (segment + 1), -1);
+        }
+
+        // the keys written in both segments are read from the newest one
+        assertEquals("seg0-5", template.requestBodyAndHeader("direct:lookup_segments", null, "KEY", "key-005"));
+        assertEquals("seg1-15", template.requestBodyAndHeader("direct:lookup_segments", null, "KEY", "key-015"));
+        assertEquals("seg1-25", template.requestBodyAndHeader("direct:lookup_segments", null, "KEY", "key-025"));
+        assertNull(template.requestBodyAndHeader("direct:lookup_segments", null, "KEY", "key-100"));
+    }
+
+    @Test
+    public void testLookupKeepsTheReadersOfEverySegmentOpen() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+        Configuration conf = new Configuration();
+        Path dir = new Path("file:///" + TEMP_DIR.toUri() + "/test-camel-lookup-readers");
+        FileSystem fs = FileSystem.get(dir.toUri(), conf);
+        fs.delete(dir, true);
+        for (int segment = 0; segment < 3; segment++) {
+            MapFile.Writer writer = new MapFile.Writer(conf, new Path(dir, "seg" + segment), MapFile.Writer.keyClass(Text.class),
+                    SequenceFile.Writer.valueClass(Text.class));
+            writer.append(new Text("key-" + segment), new Text("seg" + segment));
+            IOHelper.close(writer);
+        }
+
+        HdfsEndpoint endpoint = context.getEndpoint("hdfs://localhost/" + TEMP_DIR.toUri() + "/test-camel-lookup-readers?fileSystemType=LOCAL"
+                + "&fileType=MAP_FILE&operation=LOOKUP&lookupMaxReaders=1", HdfsEndpoint.class);
+        HdfsProducer producer = (HdfsProducer) endpoint.createProducer();
+        producer.start();
+        try {
+            for (int i = 0; i < 3; ++i) {
+                Exchange exchange = endpoint.createExchange();
+                exchange.getIn().setHeader("KEY", "key-none");
+                producer.process(exchange);
+                assertNull(exchange.getIn().getBody());
+            }
+            // more segments than lookupMaxReaders, yet each lookup reused the readers of the previous one
+            assertEquals(3, producer.getIdleLookupReaders());
+        } finally {
+            producer.stop();
+        }
+    }
+
     @Test
     public void testWriteTextWithDynamicFilename() throws Exception {
         if (!canTest()) {
@@ -346,6 +593,38 @@ public class HdfsProducerTest extends HdfsTestSupport {
         }
     }
 
+    @Test
+    public void testWriteBinaryBodies() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+
+        // larger than the buffer size of the endpoint, so the bodies are copied in several chunks
+        String content = "0123456789abcdefghijklmnopqrstuvwxyz";
+        File file = new File("target/test/binary-body.txt");
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes());
+        ByteBuffer direct = ByteBuffer.allocateDirect(content.length());
+        direct.put(content.getBytes()).flip();
+
+        template.sendBodyAndHeader("direct:write_binary", content.getBytes(), Exchange.FILE_NAME, "bytes");
+        template.sendBodyAndHeader("direct:write_binary", ByteBuffer.wrap(content.getBytes()), Exchange.FILE_NAME, "heap");
+        template.sendBodyAndHeader("direct:write_binary", direct, Exchange.FILE_NAME, "direct");
+        template.sendBodyAndHeader("direct:write_binary", file, Exchange.FILE_NAME, "file");
+
+        for (String name : new String[] {"bytes", "heap", "direct", "file"}) {
+            InputStream in = null;
+            try {
+                in = new URL("file:///" + TEMP_DIR.toUri() + "/test-camel-binary/" + name).openStream();
+                ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                IOUtils.copyBytes(in, bos, 4096, false);
+                assertEquals(content, new String(bos.toByteArray()));
+            } finally {
+                IOHelper.close(in);
+            }
+        }
+    }
+
     @Test
     public void testWriteTextWithDynamicFilenameExpression() throws Exception {
         if (!canTest()) {
@@ -369,6 +648,77 @@ public class HdfsProducerTest extends HdfsTestSupport {
         }
     }
 
+    @Test
+    public void testWriteTextWithPartitionedStreams() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+
+        // interleave the messages of two files, which are both kept open by the stream pool
+        for (int i = 0; i < 10; i++) {
+            template.sendBodyAndHeader("direct:write_partitioned", "CIAO" + i, Exchange.FILE_NAME, "file" + (i % 2));
+        }
+
+        // stop Camel to flush and close the pooled streams
+        stopCamelContext();
+
+        for (int f = 0; f < 2; f++) {
+            InputStream in = null;
+            try {
+                in = new URL("file:///" + TEMP_DIR.toUri() + "/test-camel-partitioned/file" + f).openStream();
+                ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                IOUtils.copyBytes(in, bos, 4096, false);
+                StringBuilder expected = new StringBuilder();
+                for (int i = f; i < 10; i += 2) {
+                    expected.append("CIAO").append(i);
+                }
+                assertEquals(expected.toString(), new String(bos.toByteArray()));
+            } finally {
+                IOHelper.close(in);
+            }
+        }
+    }
+
+    @Test
+    public void testPartitionedWritersWithEvictions() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+
+        // a single open stream for three partitions, so the streams are evicted while other threads write to them
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 100; i++) {
+                        template.sendBodyAndHeader("direct:write_partitioned_evicting", "X", Exchange.FILE_NAME, "p" + (i % 3));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                // fails if a message has been written to a closed stream
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // stop Camel to flush and close the pooled streams
+        stopCamelContext();
+
+        long written = 0;
+        for (File partition : new File(TEMP_DIR.toUri().getPath(), "test-camel-partitioned-evicting").listFiles()) {
+            for (File file : partition.listFiles()) {
+                if (!file.getName().startsWith(".")) {
+                    assertFalse(file.getName().endsWith(".opened"));
+                    written += file.length();
+                }
+            }
+        }
+        assertEquals(400, written);
+    }
+
     @Override
     @After
     public void tearDown() throws Exception {
@@ -392,6 +742,11 @@ public class HdfsProducerTest extends HdfsTestSupport {
             public void configure() throws Exception {
                 from("direct:start1").to("hdfs://localhost/" + TEMP_DIR.toUri() + "/test-camel1?fileSystemType=LOCAL&valueType=TEXT&fileType=SEQUENCE_FILE");
 
+                from("direct:write_group_commit").to("hdfs://localhost/" + TEMP_DIR.toUri() + "/test-camel-group-commit?fileSystemType=LOCAL&valueType=TEXT&fileType=SEQUENCE_FILE&writerQueueSize=10");
+
+                from("direct:write_sync_policy").to("hdfs://localhost/" + TEMP_DIR.toUri() + "/test-camel-sync-policy?fileSystemType=LOCAL&valueType=TEXT&fileType=SEQUENCE_FILE"
+                        + "&compressionType=BLOCK&syncPolicy=RECORDS:4&syncDurability=HFLUSH");
+
                 /* For testing writables */
                 from("direct:write_boolean").to("hdfs:localhost/" + TEMP_DIR.toUri() + "/test-camel-boolean?fileSystemType=LOCAL&valueType=BOOLEAN&fileType=SEQUENCE_FILE");
 
@@ -419,6 +774,19 @@ public class HdfsProducerTest extends HdfsTestSupport {
                 from("direct:write_text5").to("hdfs:localhost/" + TEMP_DIR.toUri() + "/test-camel-text5?fileSystemType=LOCAL&keyType=TEXT&valueType=TEXT&fileType=BLOOMMAP_FILE");
 
                 from("direct:write_dynamic_filename").to("hdfs:localhost/" + TEMP_DIR.toUri() + "/test-camel-dynamic/?fileSystemType=LOCAL&valueType=TEXT");
+
+                from("direct:write_binary").to("hdfs:localhost/" + TEMP_DIR.toUri() + "/test-camel-binary/?fileSystemType=LOCAL&bufferSize=16");
+
+                from("direct:lookup")
+                    .to("hdfs:localhost/" + TEMP_DIR.toUri() + "/test-camel-lookup?fileSystemType=LOCAL&fileType=MAP_FILE&operation=LOOKUP");
+
+                from("direct:lookup_segments")
+                    .to("hdfs:localhost/" + TEMP_DIR.toUri() + "/test-camel-lookup-segments?fileSystemType=LOCAL&fileType=BLOOMMAP_FILE&operation=LOOKUP&lookupMaxReaders=1");
+
+                from("direct:write_partitioned_evicting").to("hdfs:localhost/" + TEMP_DIR.toUri() + "/test-camel-partitioned-evicting/?fileSystemType=LOCAL"
+                        + "&maxOpenStreams=1&splitStrategy=MESSAGES:1000");
+
+                from("direct:write_partitioned").to("hdfs:localhost/" + TEMP_DIR.toUri() + "/test-camel-partitioned/?fileSystemType=LOCAL&valueType=TEXT&maxOpenStreams=2");
             }
         };
     }
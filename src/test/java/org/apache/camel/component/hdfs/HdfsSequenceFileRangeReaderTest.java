@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.hdfs;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HdfsSequenceFileRangeReaderTest extends HdfsTestSupport {
+
+    private static final int NUM_RECORDS = 2000;
+    private static final int NUM_RANGES = 7;
+
+    private final Configuration conf = new Configuration();
+    private Path file;
+    private ExecutorService executor;
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+        super.setUp();
+
+        file = new Path(new File("target/test/test-camel-range-file").getAbsolutePath());
+        // the writer adds a sync point every couple of kilobytes, so the ranges below contain several of them
+        try (SequenceFile.Writer writer = SequenceFile.createWriter(conf, SequenceFile.Writer.file(file),
+                SequenceFile.Writer.keyClass(IntWritable.class), SequenceFile.Writer.valueClass(Text.class))) {
+            for (int i = 0; i < NUM_RECORDS; i++) {
+                writer.append(new IntWritable(i), new Text("record " + i));
+            }
+        }
+        executor = Executors.newFixedThreadPool(3);
+    }
+
+    @Override
+    @After
+    public void tearDown() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+        super.tearDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testReadRangesInOrder() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+
+        List<Object> keys = readAll(true);
+
+        assertEquals(NUM_RECORDS, keys.size());
+        for (int i = 0; i < NUM_RECORDS; i++) {
+            assertEquals(i, keys.get(i));
+        }
+    }
+
+    @Test
+    public void testReadRangesUnordered() throws Exception {
+        if (!canTest()) {
+            return;
+        }
+
+        List<Object> keys = readAll(false);
+
+        assertEquals(NUM_RECORDS, keys.size());
+        Set<Object> distinct = new HashSet<>(keys);
+        assertEquals(NUM_RECORDS, distinct.size());
+    }
+
+    private List<Object> readAll(boolean ordered) throws Exception {
+        long length = new File(file.toString()).length();
+        List<HdfsSequenceFileRangeReader.Range> ranges = new ArrayList<>();
+        for (int i = 0; i < NUM_RANGES; i++) {
+            ranges.add(new HdfsSequenceFileRangeReader.Range(length * i / NUM_RANGES, length * (i + 1) / NUM_RANGES, false));
+        }
+
+        List<Object> keys = new ArrayList<>();
+        try (HdfsSequenceFileRangeReader reader = new HdfsSequenceFileRangeReader(conf, file, ranges, ordered, executor)) {
+            Holder<Object> key = new Holder<>();
+            Holder<Object> value = new Holder<>();
+            while (reader.next(key, value)) {
+                assertEquals("record " + key.value, value.value);
+                keys.add(key.value);
+            }
+        }
+        return keys;
+    }
+}
@@ -123,6 +123,29 @@ public class HdfsProducerConsumerIntegrationTest extends CamelTestSupport {
         assertThat(fileNames.size(), equalTo(ITERATIONS));
     }
 
+    @Test
+    public void testInotifyConsumer() throws Exception {
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() {
+                from("direct:start").to("hdfs://localhost:9000/tmp/test/test-camel-inotify?fileSystemType=HDFS&splitStrategy=MESSAGES:1");
+                from("hdfs://localhost:9000/tmp/test/test-camel-inotify?pattern=*&useInotify=true&initialDelay=0&delay=10&fileSystemType=HDFS")
+                    .to("mock:result");
+            }
+        });
+        context.start();
+
+        MockEndpoint resultEndpoint = context.getEndpoint("mock:result", MockEndpoint.class);
+        resultEndpoint.expectedMessageCount(10);
+
+        // the files are written after the startup listing, so they are found from the close and rename events
+        for (int i = 0; i < 10; ++i) {
+            template.sendBody("direct:start", "CIAO" + i);
+        }
+
+        resultEndpoint.assertIsSatisfied();
+    }
+
     @Override
     @After
     public void tearDown() throws Exception {